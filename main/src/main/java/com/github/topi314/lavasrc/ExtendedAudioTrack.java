@@ -4,6 +4,8 @@ import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.CompletableFuture;
+
 public abstract class ExtendedAudioTrack extends DelegatedAudioTrack {
 
 	@Nullable
@@ -17,6 +19,8 @@ public abstract class ExtendedAudioTrack extends DelegatedAudioTrack {
 	@Nullable
 	protected final String previewUrl;
 	protected final boolean isPreview;
+	@Nullable
+	private volatile CompletableFuture<String> deferredArtistArtworkUrl;
 
 	public ExtendedAudioTrack(AudioTrackInfo trackInfo, @Nullable String albumName, @Nullable String albumUrl, @Nullable String artistUrl, @Nullable String artistArtworkUrl, @Nullable String previewUrl, boolean isPreview) {
 		super(trackInfo);
@@ -45,7 +49,23 @@ public abstract class ExtendedAudioTrack extends DelegatedAudioTrack {
 
 	@Nullable
 	public String getArtistArtworkUrl() {
-		return this.artistArtworkUrl;
+		if (this.artistArtworkUrl != null) {
+			return this.artistArtworkUrl;
+		}
+		var deferred = this.deferredArtistArtworkUrl;
+		// never wait for the lookup, this is read while encoding and serializing the track
+		if (deferred == null || !deferred.isDone() || deferred.isCompletedExceptionally()) {
+			return null;
+		}
+		return deferred.join();
+	}
+
+	/**
+	 * Lets sources resolve the artist artwork in the background instead of while loading the track.
+	 * {@link #getArtistArtworkUrl()} returns null until it is resolved, sources defer it again when decoding a track which was encoded before that.
+	 */
+	public void deferArtistArtworkUrl(@Nullable CompletableFuture<String> artistArtworkUrl) {
+		this.deferredArtistArtworkUrl = artistArtworkUrl;
 	}
 
 	@Nullable
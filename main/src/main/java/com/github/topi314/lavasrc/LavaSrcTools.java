@@ -1,10 +1,12 @@
 package com.github.topi314.lavasrc;
 
+import com.github.topi314.lavasrc.cache.ResponseCache;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -14,15 +16,74 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.sedmelluq.discord.lavaplayer.tools.FriendlyException.Severity.SUSPICIOUS;
 
 public class LavaSrcTools {
 
 	private static final Logger log = LoggerFactory.getLogger(LavaSrcTools.class);
+	// not part of HttpStatus in the httpcore version lavaplayer ships
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+	private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
 
 	@Nullable
 	public static JsonBrowser fetchResponseAsJson(HttpInterface httpInterface, HttpUriRequest request) throws IOException {
+		var data = fetchResponseAsString(httpInterface, request);
+		return data == null ? null : JsonBrowser.parse(data);
+	}
+
+	/**
+	 * Same as {@link #fetchResponseAsJson(HttpInterface, HttpUriRequest)} but serves the response from the given cache if present and caches successful responses for the given ttl.
+	 */
+	@Nullable
+	public static JsonBrowser fetchResponseAsJson(HttpInterface httpInterface, HttpUriRequest request, @Nullable ResponseCache cache, String cacheKey, Duration ttl) throws IOException {
+		return fetchResponseAsJson(cache, cacheKey, ttl, () -> fetchResponseAsString(httpInterface, request));
+	}
+
+	/**
+	 * Serves the response from the given cache if present, otherwise fetches it with the given fetcher and caches it for the given ttl.
+	 * Responses with a top-level {@code error} are never cached, some apis answer with those and a 200 status for transient errors like quotas.
+	 */
+	@Nullable
+	public static JsonBrowser fetchResponseAsJson(@Nullable ResponseCache cache, String cacheKey, Duration ttl, IOSupplier<String> fetcher) throws IOException {
+		var cacheable = cache != null && !ttl.isZero() && !ttl.isNegative();
+		var data = cacheable ? cache.get(cacheKey) : null;
+		if (data != null) {
+			return JsonBrowser.parse(data);
+		}
+		data = fetcher.get();
+		if (data == null) {
+			return null;
+		}
+		var json = JsonBrowser.parse(data);
+		if (cacheable && json.get("error").isNull()) {
+			cache.put(cacheKey, data, ttl);
+		}
+		return json;
+	}
+
+	@Nullable
+	public static String fetchResponseAsString(HttpInterface httpInterface, HttpUriRequest request) throws IOException {
+		return fetchResponseAsString(httpInterface, request, false);
+	}
+
+	/**
+	 * Same as {@link #fetchResponseAsString(HttpInterface, HttpUriRequest)} but throws a {@link RateLimitException} with the
+	 * Retry-After duration when the server responds with too many requests, so the caller can back off and retry.
+	 */
+	@Nullable
+	public static String fetchRateLimitedResponseAsString(HttpInterface httpInterface, HttpUriRequest request) throws IOException {
+		return fetchResponseAsString(httpInterface, request, true);
+	}
+
+	@Nullable
+	private static String fetchResponseAsString(HttpInterface httpInterface, HttpUriRequest request, boolean throwOnRateLimit) throws IOException {
 		try (CloseableHttpResponse response = httpInterface.execute(request)) {
 			int statusCode = response.getStatusLine().getStatusCode();
 
@@ -30,6 +91,10 @@ public class LavaSrcTools {
 				var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
 				log.error("Server responded with not found to '{}': {}", request.getURI(), data);
 				return null;
+			} else if (throwOnRateLimit && statusCode == SC_TOO_MANY_REQUESTS) {
+				var retryAfter = parseRetryAfter(response.getFirstHeader("Retry-After"));
+				log.warn("Server responded with too many requests to '{}', retry after {}", request.getURI(), retryAfter);
+				throw new RateLimitException(retryAfter);
 			} else if (!HttpClientTools.isSuccessWithContent(statusCode)) {
 				var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
 				log.error("Server responded with an error to '{}': {}", request.getURI(), data);
@@ -39,7 +104,68 @@ public class LavaSrcTools {
 
 			var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
 			log.debug("Response from '{}' was successful: {}", request.getURI(), data);
-			return JsonBrowser.parse(data);
+			return data;
 		}
 	}
+
+	private static Duration parseRetryAfter(@Nullable Header header) {
+		if (header != null) {
+			try {
+				return Duration.ofSeconds(Math.max(0, Long.parseLong(header.getValue().trim())));
+			} catch (NumberFormatException e) {
+				log.debug("Failed to parse Retry-After header '{}'", header.getValue());
+			}
+		}
+		return DEFAULT_RETRY_AFTER;
+	}
+
+	/**
+	 * Fetches all given uris with the given fetcher and returns the results in the same order as the uris.
+	 * If an executor is given the uris are fetched concurrently on it, otherwise they are fetched one after another on the calling thread.
+	 */
+	public static <T> List<T> fetchAll(@Nullable ExecutorService executor, List<String> uris, IOFunction<String, T> fetcher) throws IOException {
+		var results = new ArrayList<T>(uris.size());
+		if (executor == null || uris.size() < 2) {
+			for (var uri : uris) {
+				results.add(fetcher.apply(uri));
+			}
+			return results;
+		}
+
+		var futures = new ArrayList<Future<T>>(uris.size());
+		for (var uri : uris) {
+			futures.add(executor.submit(() -> fetcher.apply(uri)));
+		}
+		try {
+			for (var future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while fetching pages", e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			var cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+		return results;
+	}
+
+	@FunctionalInterface
+	public interface IOFunction<T, R> {
+		R apply(T t) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface IOSupplier<T> {
+		T get() throws IOException;
+	}
+
 }
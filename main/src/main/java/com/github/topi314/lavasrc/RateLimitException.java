@@ -0,0 +1,25 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+
+import java.time.Duration;
+
+public class RateLimitException extends FriendlyException {
+
+	private static final long serialVersionUID = -3286418457315237912L;
+
+	private final Duration retryAfter;
+
+	public RateLimitException(Duration retryAfter) {
+		super("Server responded with too many requests.", FriendlyException.Severity.SUSPICIOUS, null);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * @return how long the server asked us to wait before sending the next request
+	 */
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.github.topi314.lavasrc.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ResponseCache} which bounds its memory by the total size of all cached responses and evicts the least recently used entries first.
+ */
+public class LruResponseCache implements ResponseCache {
+
+	private final long maxWeight;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private long weight;
+
+	/**
+	 * @param maxWeight the maximum total size in bytes of all cached keys and responses
+	 */
+	public LruResponseCache(long maxWeight) {
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException("maxWeight must be greater than 0");
+		}
+		this.maxWeight = maxWeight;
+	}
+
+	@Override
+	@Nullable
+	public String get(String key) {
+		synchronized (this.entries) {
+			var entry = this.entries.get(key);
+			if (entry == null) {
+				this.misses.increment();
+				return null;
+			}
+			if (entry.expiresAt - System.nanoTime() <= 0) {
+				this.remove(key);
+				this.misses.increment();
+				return null;
+			}
+			this.hits.increment();
+			return entry.value;
+		}
+	}
+
+	@Override
+	public void put(String key, String value, Duration ttl) {
+		var entryWeight = weigh(key, value);
+		if (ttl.isZero() || ttl.isNegative() || entryWeight > this.maxWeight) {
+			return;
+		}
+		synchronized (this.entries) {
+			this.remove(key);
+			this.entries.put(key, new Entry(value, System.nanoTime() + ttl.toNanos(), entryWeight));
+			this.weight += entryWeight;
+
+			Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+			while (this.weight > this.maxWeight && iterator.hasNext()) {
+				var eldest = iterator.next();
+				iterator.remove();
+				this.weight -= eldest.getValue().weight;
+			}
+		}
+	}
+
+	@Override
+	public void invalidate(String key) {
+		synchronized (this.entries) {
+			this.remove(key);
+		}
+	}
+
+	private void remove(String key) {
+		var entry = this.entries.remove(key);
+		if (entry != null) {
+			this.weight -= entry.weight;
+		}
+	}
+
+	private static long weigh(String key, String value) {
+		// strings are roughly 2 bytes per char on the heap
+		return 2L * (key.length() + value.length());
+	}
+
+	@Override
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	@Override
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	public long getWeight() {
+		synchronized (this.entries) {
+			return this.weight;
+		}
+	}
+
+	public int getSize() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	private static class Entry {
+		private final String value;
+		private final long expiresAt;
+		private final long weight;
+
+		private Entry(String value, long expiresAt, long weight) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.weight = weight;
+		}
+	}
+
+}
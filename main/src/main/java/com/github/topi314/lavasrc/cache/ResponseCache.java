@@ -0,0 +1,38 @@
+package com.github.topi314.lavasrc.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Caches raw API responses by key. Implementations must be thread-safe as they are shared between all load threads.
+ */
+public interface ResponseCache {
+
+	// default ttls sources map their endpoints onto
+	Duration SEARCH_TTL = Duration.ofMinutes(10);
+	Duration PLAYLIST_TTL = Duration.ofMinutes(5);
+	Duration CATALOG_TTL = Duration.ofHours(1);
+
+	@Nullable
+	String get(String key);
+
+	void put(String key, String value, Duration ttl);
+
+	void invalidate(String key);
+
+	/**
+	 * Returns how many lookups found a live entry. Implementations which don't count lookups return 0.
+	 */
+	default long getHits() {
+		return 0;
+	}
+
+	/**
+	 * Returns how many lookups found no entry or an expired one. Implementations which don't count lookups return 0.
+	 */
+	default long getMisses() {
+		return 0;
+	}
+
+}
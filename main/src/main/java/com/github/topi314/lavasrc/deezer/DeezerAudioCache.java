@@ -0,0 +1,254 @@
+package com.github.topi314.lavasrc.deezer;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps decrypted Deezer audio on local disk, so replaying a track needs neither the CDN nor decryption.
+ * The total size of all files is kept under a byte budget by deleting the least recently played tracks first.
+ */
+public class DeezerAudioCache {
+
+	private static final Logger log = LoggerFactory.getLogger(DeezerAudioCache.class);
+	private static final String FILE_EXTENSION = ".mp3";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+	private final Path directory;
+	private final long maxBytes;
+	// access ordered, so the first entry is the least recently played track
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+
+	public DeezerAudioCache(Path directory, long maxBytes) throws IOException {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes must be greater than 0");
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		Files.createDirectories(directory);
+		this.load();
+	}
+
+	private void load() throws IOException {
+		try (var files = Files.list(this.directory)) {
+			var paths = files.collect(Collectors.toList());
+			paths.sort(Comparator.comparing(path -> {
+				try {
+					return Files.getLastModifiedTime(path);
+				} catch (IOException e) {
+					return FileTime.fromMillis(0);
+				}
+			}));
+			for (var path : paths) {
+				var name = path.getFileName().toString();
+				if (name.endsWith(TEMP_FILE_EXTENSION)) {
+					// left over from tracks which were still being written when the node stopped
+					Files.deleteIfExists(path);
+				} else if (name.endsWith(FILE_EXTENSION)) {
+					var size = Files.size(path);
+					this.entries.put(name.substring(0, name.length() - FILE_EXTENSION.length()), size);
+					this.bytes += size;
+				}
+			}
+		}
+		synchronized (this) {
+			this.evict();
+		}
+	}
+
+	private static String key(String trackId, String format) {
+		return trackId + "-" + format;
+	}
+
+	private Path path(String key) {
+		return this.directory.resolve(key + FILE_EXTENSION);
+	}
+
+	/**
+	 * Opens the cached audio of the given track, or returns null if it isn't cached.
+	 */
+	@Nullable
+	public MappedSeekableInputStream open(String trackId, String format) {
+		var key = key(trackId, format);
+		synchronized (this) {
+			if (this.entries.get(key) == null) {
+				return null;
+			}
+		}
+		var path = this.path(key);
+		try {
+			var stream = MappedSeekableInputStream.open(path);
+			// remember when the track was last played, so the order survives restarts
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			return stream;
+		} catch (IOException e) {
+			log.warn("Failed to open cached Deezer track {}", key, e);
+			this.remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Starts caching the given track. The returned writer has to receive the whole audio in order, otherwise nothing is cached.
+	 */
+	@Nullable
+	public Writer createWriter(String trackId, String format) {
+		var key = key(trackId, format);
+		var tempPath = this.directory.resolve(key + "-" + UUID.randomUUID() + TEMP_FILE_EXTENSION);
+		try {
+			return new Writer(key, tempPath, FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+		} catch (IOException e) {
+			log.warn("Failed to create cache file for Deezer track {}", key, e);
+			return null;
+		}
+	}
+
+	private void commit(String key, Path tempPath, long size) throws IOException {
+		Files.move(tempPath, this.path(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		synchronized (this) {
+			var previous = this.entries.put(key, size);
+			this.bytes += size - (previous == null ? 0 : previous);
+			this.evict();
+		}
+	}
+
+	private synchronized void remove(String key) {
+		var size = this.entries.remove(key);
+		if (size != null) {
+			this.bytes -= size;
+			this.delete(key);
+		}
+	}
+
+	private void evict() {
+		var iterator = this.entries.entrySet().iterator();
+		while (this.bytes > this.maxBytes && iterator.hasNext()) {
+			var entry = iterator.next();
+			iterator.remove();
+			this.bytes -= entry.getValue();
+			this.delete(entry.getKey());
+		}
+	}
+
+	private void delete(String key) {
+		try {
+			// streams which already mapped the file keep working after it is deleted
+			Files.deleteIfExists(this.path(key));
+		} catch (IOException e) {
+			log.warn("Failed to delete cached Deezer track {}", key, e);
+		}
+	}
+
+	public synchronized long getBytes() {
+		return this.bytes;
+	}
+
+	public synchronized int getSize() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Receives the decrypted audio of one playback and adds it to the cache once the whole track was written without gaps.
+	 */
+	public class Writer implements AutoCloseable {
+
+		private final String key;
+		private final Path tempPath;
+		private final FileChannel channel;
+		private long written;
+		private boolean done;
+
+		private Writer(String key, Path tempPath, FileChannel channel) {
+			this.key = key;
+			this.tempPath = tempPath;
+			this.channel = channel;
+		}
+
+		/**
+		 * Writes the bytes read at the given stream position. Bytes which don't continue the already written ones abort the writer.
+		 */
+		public void write(long position, byte[] b, int off, int len) {
+			if (this.done) {
+				return;
+			}
+			if (position != this.written || this.written + len > DeezerAudioCache.this.maxBytes) {
+				this.abort();
+				return;
+			}
+			try {
+				var buffer = ByteBuffer.wrap(b, off, len);
+				while (buffer.hasRemaining()) {
+					this.channel.write(buffer);
+				}
+				this.written += len;
+			} catch (IOException e) {
+				log.warn("Failed to write cache file for Deezer track {}", this.key, e);
+				this.abort();
+			}
+		}
+
+		/**
+		 * Called once the stream reached its end, commits the written audio to the cache if it has the given length.
+		 * A stream which ended early, or whose length is unknown (-1), is not cached.
+		 */
+		public void complete(long length) {
+			if (this.done) {
+				return;
+			}
+			if (this.written != length) {
+				log.debug("Not caching Deezer track {}, got {} of {} bytes", this.key, this.written, length);
+				this.abort();
+				return;
+			}
+			this.done = true;
+			try {
+				this.channel.close();
+				if (this.written == 0) {
+					Files.deleteIfExists(this.tempPath);
+					return;
+				}
+				DeezerAudioCache.this.commit(this.key, this.tempPath, this.written);
+			} catch (IOException e) {
+				log.warn("Failed to commit cache file for Deezer track {}", this.key, e);
+				this.deleteTempFile();
+			}
+		}
+
+		private void abort() {
+			this.done = true;
+			try {
+				this.channel.close();
+			} catch (IOException ignored) {
+			}
+			this.deleteTempFile();
+		}
+
+		private void deleteTempFile() {
+			try {
+				Files.deleteIfExists(this.tempPath);
+			} catch (IOException e) {
+				log.warn("Failed to delete cache file {}", this.tempPath, e);
+			}
+		}
+
+		@Override
+		public void close() {
+			if (!this.done) {
+				this.abort();
+			}
+		}
+
+	}
+
+}
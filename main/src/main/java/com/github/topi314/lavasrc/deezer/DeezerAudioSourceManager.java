@@ -5,7 +5,11 @@ import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.cache.LruResponseCache;
+import com.github.topi314.lavasrc.cache.ResponseCache;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
@@ -15,6 +19,9 @@ import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
 import com.sedmelluq.discord.lavaplayer.track.*;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -23,14 +30,25 @@ import org.slf4j.LoggerFactory;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class DeezerAudioSourceManager extends ExtendedAudioSourceManager implements HttpConfigurable, AudioSearchSourceManager {
 
@@ -43,11 +61,53 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public static final String PUBLIC_API_BASE = "https://api.deezer.com/2.0";
 	public static final String PRIVATE_API_BASE = "https://www.deezer.com/ajax/gw-light.php";
 	public static final String MEDIA_BASE = "https://media.deezer.com/v1";
+	public static final Duration SESSION_TTL = Duration.ofHours(1);
+	// gw-light error keys which mean the session was rejected and has to be renewed
+	public static final Set<String> SESSION_ERRORS = Set.of("VALID_TOKEN_REQUIRED", "GATEWAY_ERROR");
+	// public api error code for lookups that matched nothing
+	public static final int ERROR_CODE_NO_DATA = 800;
+	// the playlist object embeds this many tracks as well
+	public static final int PLAYLIST_MAX_PAGE_ITEMS = 400;
+	public static final int ARTIST_MAX_PAGE_ITEMS = 50;
+	public static final int DEFAULT_PAGE_LOAD_CONCURRENCY = 4;
+	public static final int MEDIA_URL_MAX_TRACKS = 50;
+	public static final long MEDIA_URL_CACHE_SIZE = 512 * 1024;
+	// signed media urls are dropped this long before they expire, so streams don't start with an url about to expire
+	public static final Duration MEDIA_URL_EXPIRE_MARGIN = Duration.ofMinutes(1);
+	public static final Duration DEFAULT_MEDIA_URL_TTL = Duration.ofMinutes(10);
+	// how many tracks at the start of a loaded playlist or album get their media urls resolved ahead of playback
+	public static final int DEFAULT_MEDIA_URL_PREFETCH_TRACKS = 10;
+	public static final int MEDIA_URL_PREFETCH_THREADS = 4;
+	// how long playback waits for a running prefetch of its media url before resolving it itself
+	public static final Duration MEDIA_URL_PREFETCH_WAIT = Duration.ofSeconds(5);
+	// how many key schedules are kept, so replaying a track doesn't recompute its key schedule
+	public static final int DECRYPTOR_CACHE_SIZE = 64;
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
 	private static final Logger log = LoggerFactory.getLogger(DeezerAudioSourceManager.class);
 
 	private final String masterDecryptionKey;
 	private final HttpInterfaceManager httpInterfaceManager;
+	private ResponseCache responseCache;
+	private DeezerDecryptionEngine decryptionEngine = DeezerDecryptionEngine.JCE;
+	private DeezerAudioCache audioCache;
+	private DeezerIsrcIndex isrcIndex;
+	private ExecutorService isrcRefreshExecutor;
+	private final Set<String> refreshingIsrcs = ConcurrentHashMap.newKeySet();
+	private int playlistPageLimit = 6;
+	private int artistPageLimit = 2;
+	private int mediaUrlPrefetchTracks = DEFAULT_MEDIA_URL_PREFETCH_TRACKS;
+	private ExecutorService pageExecutor = createPageExecutor(DEFAULT_PAGE_LOAD_CONCURRENCY);
+	private final Object sessionLock = new Object();
+	private volatile DeezerSession session;
+	private final LruResponseCache mediaUrlCache = new LruResponseCache(MEDIA_URL_CACHE_SIZE);
+	private final Map<String, MediaUrlPrefetch> pendingMediaUrls = new ConcurrentHashMap<>();
+	private final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(MEDIA_URL_PREFETCH_THREADS, new DaemonThreadFactory("deezer-media-prefetcher"));
+	private final Map<ByteBuffer, DeezerStripeDecryptor> decryptors = new LinkedHashMap<>(DECRYPTOR_CACHE_SIZE * 2, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ByteBuffer, DeezerStripeDecryptor> eldest) {
+			return this.size() > DECRYPTOR_CACHE_SIZE;
+		}
+	};
 
 	public DeezerAudioSourceManager(String masterDecryptionKey) {
 		if (masterDecryptionKey == null || masterDecryptionKey.isEmpty()) {
@@ -57,6 +117,102 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
 	}
 
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	public void setPlaylistPageLimit(int playlistPageLimit) {
+		this.playlistPageLimit = playlistPageLimit;
+	}
+
+	public void setArtistPageLimit(int artistPageLimit) {
+		this.artistPageLimit = artistPageLimit;
+	}
+
+	/**
+	 * Sets how many tracks at the start of a loaded playlist or album get their media urls resolved in the background, 0 disables it.
+	 */
+	public void setMediaUrlPrefetchTracks(int mediaUrlPrefetchTracks) {
+		this.mediaUrlPrefetchTracks = mediaUrlPrefetchTracks;
+	}
+
+	/**
+	 * Sets how many playlist and artist pages are fetched at the same time. A value of 1 or less fetches pages one after another.
+	 */
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		var oldExecutor = this.pageExecutor;
+		this.pageExecutor = createPageExecutor(pageLoadConcurrency);
+		if (oldExecutor != null) {
+			oldExecutor.shutdown();
+		}
+	}
+
+	private static ExecutorService createPageExecutor(int concurrency) {
+		if (concurrency <= 1) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("deezer-page-loader"));
+	}
+
+	public void setDecryptionEngine(DeezerDecryptionEngine decryptionEngine) {
+		this.decryptionEngine = decryptionEngine;
+		synchronized (this.decryptors) {
+			this.decryptors.clear();
+		}
+	}
+
+	public DeezerDecryptionEngine getDecryptionEngine() {
+		return this.decryptionEngine;
+	}
+
+	/**
+	 * Returns a decryptor for the given track key. Decryptors of engines which can be shared between streams are reused per key.
+	 */
+	public DeezerStripeDecryptor getDecryptor(byte[] key) throws IOException {
+		var engine = this.decryptionEngine;
+		if (!engine.isShareable()) {
+			return engine.create(key);
+		}
+		var cacheKey = ByteBuffer.wrap(key.clone());
+		synchronized (this.decryptors) {
+			var decryptor = this.decryptors.get(cacheKey);
+			if (decryptor != null) {
+				return decryptor;
+			}
+		}
+		var decryptor = engine.create(key);
+		synchronized (this.decryptors) {
+			this.decryptors.put(cacheKey, decryptor);
+		}
+		return decryptor;
+	}
+
+	/**
+	 * Sets the local disk cache for decrypted tracks, null disables it.
+	 */
+	public void setAudioCache(DeezerAudioCache audioCache) {
+		this.audioCache = audioCache;
+	}
+
+	public DeezerAudioCache getAudioCache() {
+		return this.audioCache;
+	}
+
+	/**
+	 * Sets the local index which answers repeated {@code dzisrc:} lookups, null disables it.
+	 * Outdated entries are still served and looked up again in the background.
+	 */
+	public void setIsrcIndex(DeezerIsrcIndex isrcIndex) {
+		if (isrcIndex != null && this.isrcRefreshExecutor == null) {
+			this.isrcRefreshExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("deezer-isrc-refresher"));
+		}
+		this.isrcIndex = isrcIndex;
+	}
+
+	public DeezerIsrcIndex getIsrcIndex() {
+		return this.isrcIndex;
+	}
+
 	@NotNull
 	@Override
 	public String getSourceName() {
@@ -151,7 +307,229 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public JsonBrowser getJson(String uri) throws IOException {
 		var request = new HttpGet(uri);
 		request.setHeader("Accept", "application/json");
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request, this.responseCache, uri, getCacheTtl(uri));
+	}
+
+	/**
+	 * Returns the shared session, starting a new one if there is none or it expired.
+	 * Concurrent callers wait for the same new session instead of each starting their own.
+	 */
+	public DeezerSession getSession() throws IOException {
+		var session = this.session;
+		if (session != null && !session.isExpired()) {
+			return session;
+		}
+		synchronized (this.sessionLock) {
+			session = this.session;
+			if (session == null || session.isExpired()) {
+				session = this.createSession();
+				this.session = session;
+			}
+			return session;
+		}
+	}
+
+	/**
+	 * Drops the given session after Deezer rejected it, unless it was already replaced.
+	 */
+	public void invalidateSession(DeezerSession session) {
+		synchronized (this.sessionLock) {
+			if (this.session == session) {
+				this.session = null;
+			}
+		}
+	}
+
+	private DeezerSession createSession() throws IOException {
+		var getSessionID = new HttpPost(PRIVATE_API_BASE + "?method=deezer.ping&input=3&api_version=1.0&api_token=");
+		var json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getSessionID);
+
+		checkResponse(json, "Failed to get session ID: ");
+		var sessionID = json.get("results").get("SESSION").text();
+
+		var getUserToken = new HttpPost(PRIVATE_API_BASE + "?method=deezer.getUserData&input=3&api_version=1.0&api_token=");
+		getUserToken.setHeader("Cookie", "sid=" + sessionID);
+		json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getUserToken);
+
+		checkResponse(json, "Failed to get user token: ");
+		var licenseToken = json.get("results").get("USER").get("OPTIONS").get("license_token").text();
+		var apiToken = json.get("results").get("checkForm").text();
+		return new DeezerSession(sessionID, licenseToken, apiToken, Instant.now().plus(SESSION_TTL));
+	}
+
+	/**
+	 * Returns the signed media url of the given track, from the prefetched urls if possible.
+	 */
+	public URI getMediaURI(String trackId) throws IOException {
+		var prefetch = this.pendingMediaUrls.get(trackId);
+		// a queued prefetch may wait behind the prefetches of other playlists, only one which already runs is worth waiting for
+		if (prefetch != null && prefetch.started) {
+			try {
+				prefetch.future.get(MEDIA_URL_PREFETCH_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for media url", e);
+			} catch (ExecutionException | TimeoutException ignored) {
+				// the prefetch failed or takes too long, resolve the url below instead
+			}
+		}
+
+		var errors = new HashMap<String, String>();
+		var uri = this.getMediaURIs(List.of(trackId), errors).get(trackId);
+		if (uri == null) {
+			throw new IllegalStateException("Failed to get media URL: " + errors.getOrDefault(trackId, "No media found"));
+		}
+		return uri;
+	}
+
+	/**
+	 * Resolves the signed media urls of many tracks at once, with one request pair per {@link #MEDIA_URL_MAX_TRACKS} tracks.
+	 * Tracks without a playable media url are missing from the result.
+	 */
+	public Map<String, URI> getMediaURIs(Collection<String> trackIds) throws IOException {
+		return this.getMediaURIs(trackIds, new HashMap<>());
+	}
+
+	/**
+	 * Resolves the media urls of the given tracks in the background, so they can start streaming right away when played.
+	 * Urls which are already cached or being resolved are skipped.
+	 */
+	public CompletableFuture<Void> prefetchMediaURIs(Collection<String> trackIds) {
+		var prefetch = new MediaUrlPrefetch();
+		var ids = new ArrayList<String>();
+		for (var id : new LinkedHashSet<>(trackIds)) {
+			if (this.mediaUrlCache.get(id) == null && this.pendingMediaUrls.putIfAbsent(id, prefetch) == null) {
+				ids.add(id);
+			}
+		}
+		if (ids.isEmpty()) {
+			prefetch.future.complete(null);
+			return prefetch.future;
+		}
+
+		try {
+			this.prefetchExecutor.execute(() -> {
+				prefetch.started = true;
+				try {
+					this.getMediaURIs(ids);
+					prefetch.future.complete(null);
+				} catch (Exception e) {
+					log.warn("Failed to prefetch Deezer media urls", e);
+					prefetch.future.completeExceptionally(e);
+				} finally {
+					ids.forEach(id -> this.pendingMediaUrls.remove(id, prefetch));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			ids.forEach(id -> this.pendingMediaUrls.remove(id, prefetch));
+			prefetch.future.completeExceptionally(e);
+		}
+		return prefetch.future;
+	}
+
+	private Map<String, URI> getMediaURIs(Collection<String> trackIds, Map<String, String> errors) throws IOException {
+		var output = new HashMap<String, URI>();
+		var missing = new ArrayList<String>();
+		for (var id : new LinkedHashSet<>(trackIds)) {
+			var cached = this.mediaUrlCache.get(id);
+			if (cached == null) {
+				missing.add(id);
+			} else {
+				output.put(id, URI.create(cached));
+			}
+		}
+
+		for (var i = 0; i < missing.size(); i += MEDIA_URL_MAX_TRACKS) {
+			var chunk = missing.subList(i, Math.min(i + MEDIA_URL_MAX_TRACKS, missing.size()));
+			var session = this.getSession();
+			try {
+				this.fetchMediaURIs(chunk, session, output, errors);
+			} catch (DeezerSessionException e) {
+				if (!e.isSessionError()) {
+					throw e;
+				}
+				// the shared session got rejected, start a new one and try once more
+				this.invalidateSession(session);
+				this.fetchMediaURIs(chunk, this.getSession(), output, errors);
+			}
+		}
+		return output;
+	}
+
+	private void fetchMediaURIs(List<String> trackIds, DeezerSession session, Map<String, URI> output, Map<String, String> errors) throws IOException {
+		var getTrackTokens = new HttpPost(PRIVATE_API_BASE + "?method=song.getListData&input=3&api_version=1.0&api_token=" + session.getApiToken());
+		getTrackTokens.setHeader("Cookie", "sid=" + session.getSessionID());
+		getTrackTokens.setEntity(new StringEntity("{\"sng_ids\":[\"" + String.join("\",\"", trackIds) + "\"]}", ContentType.APPLICATION_JSON));
+		var json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getTrackTokens);
+
+		checkResponse(json, "Failed to get track tokens: ");
+		var ids = new ArrayList<String>();
+		var trackTokens = new ArrayList<String>();
+		for (var track : json.get("results").get("data").values()) {
+			ids.add(track.get("SNG_ID").text());
+			trackTokens.add(track.get("TRACK_TOKEN").text());
+		}
+		if (trackTokens.isEmpty()) {
+			return;
+		}
+
+		var getMediaURLs = new HttpPost(MEDIA_BASE + "/get_url");
+		getMediaURLs.setEntity(new StringEntity("{\"license_token\":\"" + session.getLicenseToken() + "\",\"media\": [{\"type\": \"FULL\",\"formats\": [{\"cipher\": \"BF_CBC_STRIPE\", \"format\": \"" + DeezerAudioTrack.FORMAT + "\"}]}],\"track_tokens\": [\"" + String.join("\",\"", trackTokens) + "\"]}", ContentType.APPLICATION_JSON));
+		json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getMediaURLs);
+		if (json == null) {
+			throw new IllegalStateException("Failed to get media URL: No response");
+		}
+
+		// the media entries are in the same order as the track tokens
+		var media = json.get("data").values();
+		for (var i = 0; i < media.size() && i < ids.size(); i++) {
+			var entry = media.get(i);
+			var entryErrors = entry.get("errors").values();
+			if (!entryErrors.isEmpty()) {
+				var errorsStr = entryErrors.stream().map(e -> e.get("code").text() + ": " + e.get("message").text()).collect(Collectors.joining(", "));
+				errors.put(ids.get(i), errorsStr);
+				continue;
+			}
+			var url = entry.get("media").index(0).get("sources").index(0).get("url").text();
+			if (url == null) {
+				continue;
+			}
+			var expire = entry.get("media").index(0).get("exp").asLong(0);
+			var ttl = expire > 0 ? Duration.between(Instant.now(), Instant.ofEpochSecond(expire)).minus(MEDIA_URL_EXPIRE_MARGIN) : DEFAULT_MEDIA_URL_TTL;
+			this.mediaUrlCache.put(ids.get(i), url, ttl);
+			output.put(ids.get(i), URI.create(url));
+		}
+	}
+
+	static void checkResponse(JsonBrowser json, String message) throws IllegalStateException {
+		if (json == null) {
+			throw new IllegalStateException(message + "No response");
+		}
+		// the private api reports errors as an object like {"VALID_TOKEN_REQUIRED": "Invalid CSRF token"}
+		var error = json.get("error");
+		if (error.isMap() && !error.values().isEmpty()) {
+			throw new DeezerSessionException(message + error.format(), isSessionError(error));
+		}
+		// per track errors like missing rights or geo blocking say nothing about the session
+		var errors = json.get("data").index(0).get("errors").values();
+		if (!errors.isEmpty()) {
+			var errorsStr = errors.stream().map(e -> e.get("code").text() + ": " + e.get("message").text()).collect(Collectors.joining(", "));
+			throw new DeezerSessionException(message + errorsStr, false);
+		}
+	}
+
+	private static boolean isSessionError(JsonBrowser error) {
+		return SESSION_ERRORS.stream().anyMatch(key -> !error.get(key).isNull());
+	}
+
+	private static Duration getCacheTtl(String uri) {
+		if (uri.startsWith(PUBLIC_API_BASE + "/search")) {
+			return ResponseCache.SEARCH_TTL;
+		}
+		if (uri.startsWith(PUBLIC_API_BASE + "/playlist/")) {
+			return ResponseCache.PLAYLIST_TTL;
+		}
+		return ResponseCache.CATALOG_TTL;
 	}
 
 	private List<AudioTrack> parseTracks(JsonBrowser json, boolean preview) {
@@ -258,13 +636,89 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	}
 
 	private AudioItem getTrackByISRC(String isrc, boolean preview) throws IOException {
-		var json = this.getJson(PUBLIC_API_BASE + "/track/isrc:" + isrc);
-		if (json == null || json.get("id").isNull()) {
+		var index = this.isrcIndex;
+		var entry = index == null ? null : index.get(isrc);
+		if (entry != null) {
+			if (index.isStale(entry)) {
+				this.refreshISRC(index, isrc);
+			}
+			if (entry.getTrack() == null) {
+				return AudioReference.NO_TRACK;
+			}
+			return this.parseTrack(JsonBrowser.parse(entry.getTrack()), preview);
+		}
+
+		var json = this.fetchTrackByISRC(index, isrc);
+		if (json == null) {
 			return AudioReference.NO_TRACK;
 		}
 		return this.parseTrack(json, preview);
 	}
 
+	private JsonBrowser fetchTrackByISRC(DeezerIsrcIndex index, String isrc) throws IOException {
+		var json = this.getJson(PUBLIC_API_BASE + "/track/isrc:" + isrc);
+		if (json == null) {
+			// no response says nothing about the isrc, so it is not remembered
+			return null;
+		}
+		var error = json.get("error");
+		if (!error.isNull()) {
+			// only "no data" means Deezer doesn't know the isrc, other errors like quota limits are not remembered
+			if (error.get("code").asLong(0) == ERROR_CODE_NO_DATA && index != null) {
+				index.put(isrc, null);
+			}
+			return null;
+		}
+		if (json.get("id").isNull()) {
+			return null;
+		}
+		if (index != null) {
+			index.put(isrc, compactTrack(json));
+		}
+		return json;
+	}
+
+	private void refreshISRC(DeezerIsrcIndex index, String isrc) {
+		if (!this.refreshingIsrcs.add(isrc)) {
+			return;
+		}
+		try {
+			this.isrcRefreshExecutor.execute(() -> {
+				try {
+					this.fetchTrackByISRC(index, isrc);
+				} catch (Exception e) {
+					log.warn("Failed to refresh Deezer ISRC index entry for {}", isrc, e);
+				} finally {
+					this.refreshingIsrcs.remove(isrc);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// shutting down, the stale entry is refreshed on the next start
+			this.refreshingIsrcs.remove(isrc);
+		}
+	}
+
+	/**
+	 * Keeps only the fields {@link #parseTrack(JsonBrowser, boolean)} reads, so index entries stay small.
+	 */
+	private static String compactTrack(JsonBrowser json) {
+		var track = JsonBrowser.newMap();
+		for (var field : List.of("id", "title", "duration", "readable", "available_countries", "isrc", "preview")) {
+			track.put(field, json.get(field));
+		}
+		var artist = JsonBrowser.newMap();
+		for (var field : List.of("name", "link", "picture_xl")) {
+			artist.put(field, json.get("artist").get(field));
+		}
+		track.put("artist", artist);
+		var album = JsonBrowser.newMap();
+		for (var field : List.of("title", "link", "cover_xl")) {
+			album.put(field, json.get("album").get(field));
+		}
+		track.put("album", album);
+		return track.format();
+	}
+
 	private AudioItem getSearch(String query, boolean preview) throws IOException {
 		var json = this.getJson(PUBLIC_API_BASE + "/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
 		if (json == null || json.get("data").values().isEmpty()) {
@@ -287,7 +741,9 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 			track.get("artist").put("picture_xl", json.get("artist").get("picture_xl"));
 		}
 
-		return new DeezerAudioPlaylist(json.get("title").text(), this.parseTracks(json.get("tracks"), preview), DeezerAudioPlaylist.Type.ALBUM, json.get("link").text(), artworkUrl, author, (int) json.get("nb_tracks").asLong(0));
+		var tracks = this.parseTracks(json.get("tracks"), preview);
+		this.prefetchFirstTracks(tracks, preview);
+		return new DeezerAudioPlaylist(json.get("title").text(), tracks, DeezerAudioPlaylist.Type.ALBUM, json.get("link").text(), artworkUrl, author, (int) json.get("nb_tracks").asLong(0));
 	}
 
 	private AudioItem getTrack(String id, boolean preview) throws IOException {
@@ -306,22 +762,24 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 
 		var artworkUrl = json.get("picture_xl").text();
 		var author = json.get("creator").get("name").text();
+		var total = (int) json.get("nb_tracks").asLong(0);
+		var tracks = this.getTracks(json.get("tracks"), PUBLIC_API_BASE + "/playlist/" + id + "/tracks", total, PLAYLIST_MAX_PAGE_ITEMS, this.playlistPageLimit);
 
-		var tracks = this.getJson(PUBLIC_API_BASE + "/playlist/" + id + "/tracks");
-
-		return new DeezerAudioPlaylist(json.get("title").text(), this.parseTracks(tracks, preview), DeezerAudioPlaylist.Type.PLAYLIST, json.get("link").text(), artworkUrl, author, (int) json.get("nb_tracks").asLong(0));
+		var deezerTracks = this.parseTracks(tracks, preview);
+		this.prefetchFirstTracks(deezerTracks, preview);
+		return new DeezerAudioPlaylist(json.get("title").text(), deezerTracks, DeezerAudioPlaylist.Type.PLAYLIST, json.get("link").text(), artworkUrl, author, total);
 	}
 
 	private AudioItem getArtist(String id, boolean preview) throws IOException {
-		var json = this.getJson(PUBLIC_API_BASE + "/artist/" + id);
-		if (json == null) {
-			return AudioReference.NO_TRACK;
-		}
-
-		var tracks = this.getJson(PUBLIC_API_BASE + "/artist/" + id + "/top?limit=50");
-		if (tracks.get("data").values().isEmpty()) {
+		// the artist and the first page of top tracks don't depend on each other
+		var topTracksUri = PUBLIC_API_BASE + "/artist/" + id + "/top";
+		var responses = LavaSrcTools.fetchAll(this.pageExecutor, List.of(PUBLIC_API_BASE + "/artist/" + id, topTracksUri + "?limit=" + ARTIST_MAX_PAGE_ITEMS), this::getJson);
+		var json = responses.get(0);
+		var firstPage = responses.get(1);
+		if (json == null || firstPage == null || firstPage.get("data").values().isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
+		var tracks = this.getTracks(firstPage, topTracksUri, (int) firstPage.get("total").asLong(0), ARTIST_MAX_PAGE_ITEMS, this.artistPageLimit);
 
 		var artworkUrl = json.get("picture_xl").text();
 		var author = json.get("name").text();
@@ -329,8 +787,57 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return new DeezerAudioPlaylist(author + "'s Top Tracks", deezerTracks, DeezerAudioPlaylist.Type.ARTIST, json.get("link").text(), artworkUrl, author, deezerTracks.size());
 	}
 
+	/**
+	 * Resolves the media urls of the tracks likely to be played first, so they start right away once queued.
+	 */
+	private void prefetchFirstTracks(List<AudioTrack> tracks, boolean preview) {
+		if (preview || this.mediaUrlPrefetchTracks <= 0 || tracks.isEmpty()) {
+			return;
+		}
+		this.prefetchMediaURIs(tracks.stream().limit(this.mediaUrlPrefetchTracks).map(AudioTrack::getIdentifier).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Merges the already loaded first page with all remaining pages up to the page limit into one {@code data} list.
+	 * The remaining {@code index} offsets are computed from the total and fetched at once.
+	 */
+	private JsonBrowser getTracks(JsonBrowser firstPage, String tracksUri, int total, int pageSize, int pageLimit) throws IOException {
+		var tracksRaw = JsonBrowser.newList();
+		firstPage.get("data").values().forEach(tracksRaw::add);
+
+		var loaded = tracksRaw.values().size();
+		var maxTracks = Math.min(total, Math.max(1, pageLimit) * pageSize);
+		var uris = new ArrayList<String>();
+		for (var index = loaded; loaded > 0 && index < maxTracks; index += pageSize) {
+			uris.add(tracksUri + "?index=" + index + "&limit=" + pageSize);
+		}
+
+		for (var page : LavaSrcTools.fetchAll(this.pageExecutor, uris, this::getJson)) {
+			if (page != null) {
+				page.get("data").values().forEach(tracksRaw::add);
+			}
+		}
+		var dataRaw = JsonBrowser.newMap();
+		dataRaw.put("data", tracksRaw);
+		return dataRaw;
+	}
+
 	@Override
 	public void shutdown() {
+		if (this.pageExecutor != null) {
+			ExecutorTools.shutdownExecutor(this.pageExecutor, "deezer page loader");
+		}
+		ExecutorTools.shutdownExecutor(this.prefetchExecutor, "deezer media prefetcher");
+		if (this.isrcRefreshExecutor != null) {
+			ExecutorTools.shutdownExecutor(this.isrcRefreshExecutor, "deezer isrc refresher");
+		}
+		if (this.isrcIndex != null) {
+			try {
+				this.isrcIndex.close();
+			} catch (IOException e) {
+				log.error("Failed to close Deezer ISRC index", e);
+			}
+		}
 		try {
 			this.httpInterfaceManager.close();
 		} catch (IOException e) {
@@ -356,4 +863,11 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return this.httpInterfaceManager.getInterface();
 	}
 
+	private static class MediaUrlPrefetch {
+
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		private volatile boolean started;
+
+	}
+
 }
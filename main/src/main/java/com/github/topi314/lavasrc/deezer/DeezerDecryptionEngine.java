@@ -0,0 +1,63 @@
+package com.github.topi314.lavasrc.deezer;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+/**
+ * The implementations available for decrypting Deezer streams.
+ */
+public enum DeezerDecryptionEngine {
+
+	/**
+	 * Decrypts with the Blowfish {@link Cipher} of the installed JCE provider.
+	 */
+	JCE(false) {
+		@Override
+		public DeezerStripeDecryptor create(byte[] key) throws IOException {
+			try {
+				var cipher = Cipher.getInstance("Blowfish/CBC/NoPadding");
+				cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "Blowfish"), new IvParameterSpec(IV));
+				return (buffer, offset, length) -> {
+					try {
+						cipher.doFinal(buffer, offset, length, buffer, offset);
+					} catch (GeneralSecurityException e) {
+						throw new IOException(e);
+					}
+				};
+			} catch (GeneralSecurityException e) {
+				throw new IOException(e);
+			}
+		}
+	},
+	/**
+	 * Decrypts with {@link BlowfishStripeDecryptor}, which skips the JCE provider dispatch.
+	 */
+	JAVA(true) {
+		@Override
+		public DeezerStripeDecryptor create(byte[] key) {
+			return new BlowfishStripeDecryptor(key);
+		}
+	};
+
+	private static final byte[] IV = new byte[]{0, 1, 2, 3, 4, 5, 6, 7};
+
+	private final boolean shareable;
+
+	DeezerDecryptionEngine(boolean shareable) {
+		this.shareable = shareable;
+	}
+
+	/**
+	 * Whether one decryptor of this engine can be used by several streams at the same time.
+	 * A JCE {@link Cipher} keeps state between calls, {@link BlowfishStripeDecryptor} only reads its key schedule.
+	 */
+	public boolean isShareable() {
+		return this.shareable;
+	}
+
+	public abstract DeezerStripeDecryptor create(byte[] key) throws IOException;
+
+}
@@ -0,0 +1,249 @@
+package com.github.topi314.lavasrc.deezer;
+
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Remembers which Deezer track an ISRC resolved to, including ISRCs Deezer doesn't know.
+ * Every lookup result is appended to a log file, one {@code isrc epochSecond track} line each, where track is the
+ * compact track json or {@code -} if there was none. The log is replayed into memory on startup and compacted whenever
+ * most of its lines were superseded. Once more than {@link #DEFAULT_MAX_ENTRIES} ISRCs are known, the least recently
+ * updated ones are dropped on compaction.
+ */
+public class DeezerIsrcIndex implements AutoCloseable {
+
+	public static final Duration DEFAULT_REFRESH_AFTER = Duration.ofDays(7);
+	public static final Duration DEFAULT_NEGATIVE_REFRESH_AFTER = Duration.ofDays(1);
+	public static final int DEFAULT_MAX_ENTRIES = 100_000;
+	// the log is not compacted below this many lines, so small indexes aren't rewritten all the time
+	public static final int COMPACT_MIN_LINES = 1000;
+	private static final Logger log = LoggerFactory.getLogger(DeezerIsrcIndex.class);
+	private static final String NO_TRACK = "-";
+
+	private final Path path;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("deezer-isrc-compactor"));
+	private BufferedWriter writer;
+	private int lines;
+	// lines appended while a compaction runs, they are added to the compacted log before it replaces the current one
+	private List<String> pendingLines;
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private Duration refreshAfter = DEFAULT_REFRESH_AFTER;
+	private Duration negativeRefreshAfter = DEFAULT_NEGATIVE_REFRESH_AFTER;
+
+	public DeezerIsrcIndex(Path path) throws IOException {
+		this.path = path;
+		if (Files.exists(path)) {
+			for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				var parts = line.split("\t", 3);
+				if (parts.length != 3) {
+					continue;
+				}
+				try {
+					this.entries.put(parts[0], new Entry(parts[2].equals(NO_TRACK) ? null : parts[2], Instant.ofEpochSecond(Long.parseLong(parts[1]))));
+					this.lines++;
+				} catch (NumberFormatException ignored) {
+				}
+			}
+		}
+		if (this.shouldCompact()) {
+			var tempPath = this.writeCompacted(this.trim(new ArrayList<>(this.entries.entrySet())));
+			Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.lines = this.entries.size();
+		}
+		this.writer = this.openWriter();
+	}
+
+	private BufferedWriter openWriter() throws IOException {
+		return Files.newBufferedWriter(this.path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	public void setRefreshAfter(Duration refreshAfter) {
+		this.refreshAfter = refreshAfter;
+	}
+
+	public void setNegativeRefreshAfter(Duration negativeRefreshAfter) {
+		this.negativeRefreshAfter = negativeRefreshAfter;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	@Nullable
+	public Entry get(String isrc) {
+		return this.entries.get(isrc);
+	}
+
+	/**
+	 * Records what the given ISRC resolved to, null meaning Deezer has no track for it.
+	 */
+	public void put(String isrc, @Nullable String track) {
+		var entry = new Entry(track, Instant.now());
+		var line = isrc + "\t" + entry.updatedAt.getEpochSecond() + "\t" + (track == null ? NO_TRACK : track);
+		synchronized (this) {
+			this.entries.put(isrc, entry);
+			if (this.pendingLines != null) {
+				this.pendingLines.add(line);
+			}
+			try {
+				this.writer.write(line);
+				this.writer.newLine();
+				this.writer.flush();
+				this.lines++;
+			} catch (IOException e) {
+				log.warn("Failed to write Deezer ISRC index entry for {}", isrc, e);
+			}
+			if (this.pendingLines == null && this.shouldCompact()) {
+				this.startCompaction();
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the entry is old enough to be looked up again. Entries without a track are refreshed sooner.
+	 */
+	public boolean isStale(Entry entry) {
+		var refreshAfter = entry.track == null ? this.negativeRefreshAfter : this.refreshAfter;
+		return entry.updatedAt.plus(refreshAfter).isBefore(Instant.now());
+	}
+
+	private boolean shouldCompact() {
+		return this.entries.size() > this.maxEntries || this.lines > Math.max(this.entries.size() * 2, COMPACT_MIN_LINES);
+	}
+
+	/**
+	 * Rewrites the log on the compactor thread, so lookups don't wait for it. Only swapping the files happens under the lock.
+	 */
+	private void startCompaction() {
+		var snapshot = new ArrayList<>(this.entries.entrySet());
+		var pendingLines = new ArrayList<String>();
+		this.pendingLines = pendingLines;
+		try {
+			this.compactor.execute(() -> {
+				try {
+					var tempPath = this.writeCompacted(this.trim(snapshot));
+					synchronized (this) {
+						try (var writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+							for (var line : pendingLines) {
+								writer.write(line);
+								writer.newLine();
+							}
+						}
+						this.writer.close();
+						try {
+							Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+							this.lines = snapshot.size() + pendingLines.size();
+						} finally {
+							this.writer = this.openWriter();
+						}
+					}
+				} catch (IOException e) {
+					log.warn("Failed to compact Deezer ISRC index", e);
+					try {
+						Files.deleteIfExists(this.getTempPath());
+					} catch (IOException ignored) {
+					}
+				} finally {
+					synchronized (this) {
+						this.pendingLines = null;
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// closed, the log is compacted on the next start
+			this.pendingLines = null;
+		}
+	}
+
+	/**
+	 * Drops the least recently updated entries from the index and the given snapshot once there are more than {@link #maxEntries}.
+	 */
+	private List<Map.Entry<String, Entry>> trim(List<Map.Entry<String, Entry>> snapshot) {
+		if (snapshot.size() <= this.maxEntries) {
+			return snapshot;
+		}
+		snapshot.sort(Comparator.comparing(entry -> entry.getValue().updatedAt));
+		// drop a tenth more than needed, so the next few puts don't trigger another compaction right away
+		var remove = snapshot.size() - this.maxEntries + this.maxEntries / 10;
+		var removed = snapshot.subList(0, remove);
+		// entries updated since the snapshot are kept
+		removed.forEach(entry -> this.entries.remove(entry.getKey(), entry.getValue()));
+		removed.clear();
+		return snapshot;
+	}
+
+	private Path getTempPath() {
+		return this.path.resolveSibling(this.path.getFileName() + ".tmp");
+	}
+
+	private Path writeCompacted(List<Map.Entry<String, Entry>> snapshot) throws IOException {
+		var tempPath = this.getTempPath();
+		try (var writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+			for (var entry : snapshot) {
+				writer.write(entry.getKey() + "\t" + entry.getValue().updatedAt.getEpochSecond() + "\t" + (entry.getValue().track == null ? NO_TRACK : entry.getValue().track));
+				writer.newLine();
+			}
+		}
+		return tempPath;
+	}
+
+	public int getSize() {
+		return this.entries.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		ExecutorTools.shutdownExecutor(this.compactor, "deezer isrc compactor");
+		synchronized (this) {
+			this.writer.close();
+		}
+	}
+
+	public static class Entry {
+
+		@Nullable
+		private final String track;
+		private final Instant updatedAt;
+
+		private Entry(@Nullable String track, Instant updatedAt) {
+			this.track = track;
+			this.updatedAt = updatedAt;
+		}
+
+		/**
+		 * The compact track json, or null if Deezer has no track for the ISRC.
+		 */
+		@Nullable
+		public String getTrack() {
+			return this.track;
+		}
+
+		public Instant getUpdatedAt() {
+			return this.updatedAt;
+		}
+
+	}
+
+}
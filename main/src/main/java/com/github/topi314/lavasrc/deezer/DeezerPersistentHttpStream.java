@@ -1,94 +1,297 @@
 package com.github.topi314.lavasrc.deezer;
 
-import com.sedmelluq.discord.lavaplayer.tools.io.ByteBufferInputStream;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import org.apache.http.HttpResponse;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.ByteBuffer;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class DeezerPersistentHttpStream extends PersistentHttpStream {
 
-	private final byte[] keyMaterial;
+	public static final int STRIPE_SIZE = 2048;
+	// how many recently decrypted stripes each stream keeps for seeking back
+	public static final int WINDOW_STRIPES = 32;
+
+	// created once per stream, so reconnects and seeks reuse the key schedule
+	private final DeezerStripeDecryptor decryptor;
+	private final StripeWindow window = new StripeWindow(WINDOW_STRIPES);
+	// the logical position while position was moved back to the start of its stripe for the next connect request, -1 if it is aligned
+	private long connectPosition = -1;
+	private boolean connected;
+	private DeezerAudioCache.Writer cacheWriter;
+	// the length of the whole audio as the first response reported it, -1 if it didn't
+	private long totalLength = -1;
+	private final byte[] singleByte = new byte[1];
+	private byte[] skipBuffer;
 
 	public DeezerPersistentHttpStream(HttpInterface httpInterface, URI contentUrl, Long contentLength, byte[] keyMaterial) {
+		this(httpInterface, contentUrl, contentLength, createDecryptor(keyMaterial));
+	}
+
+	public DeezerPersistentHttpStream(HttpInterface httpInterface, URI contentUrl, Long contentLength, DeezerStripeDecryptor decryptor) {
 		super(httpInterface, contentUrl, contentLength);
-		this.keyMaterial = keyMaterial;
+		this.decryptor = decryptor;
+	}
+
+	private static DeezerStripeDecryptor createDecryptor(byte[] keyMaterial) {
+		try {
+			return DeezerDecryptionEngine.JCE.create(keyMaterial);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to initialize the Blowfish cipher", e);
+		}
+	}
+
+	/**
+	 * Copies everything read from this stream into the given cache writer, which commits it if the stream is read to its end without gaps
+	 * and got as many bytes as the server announced.
+	 */
+	public void setCacheWriter(DeezerAudioCache.Writer cacheWriter) {
+		this.cacheWriter = cacheWriter;
 	}
 
 	@Override
 	public InputStream createContentInputStream(HttpResponse response) throws IOException {
-		return new DecryptingInputStream(response.getEntity().getContent(), this.keyMaterial, this.position);
+		var start = this.position;
+		if (this.totalLength < 0) {
+			this.totalLength = getTotalLength(response, start);
+		}
+		var stream = new DecryptingInputStream(response.getEntity().getContent(), this.decryptor, this.window, start);
+		if (this.connectPosition >= 0) {
+			stream.discard(this.connectPosition - start);
+			this.position = this.connectPosition;
+			this.connectPosition = -1;
+		}
+		this.connected = true;
+		return stream;
 	}
 
-	private static class DecryptingInputStream extends InputStream {
+	private static long getTotalLength(HttpResponse response, long start) {
+		var contentRange = response.getFirstHeader("Content-Range");
+		if (contentRange != null) {
+			// bytes start-end/total, where total may be *
+			var value = contentRange.getValue();
+			try {
+				return Long.parseLong(value.substring(value.lastIndexOf('/') + 1).trim());
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		var contentLength = response.getEntity().getContentLength();
+		return contentLength < 0 ? -1 : start + contentLength;
+	}
+
+	@Override
+	public long getPosition() {
+		return this.connectPosition >= 0 ? this.connectPosition : this.position;
+	}
 
-		private static final int BLOCK_SIZE = 2048;
-		private static final byte[] iv = new byte[]{0, 1, 2, 3, 4, 5, 6, 7};
+	/**
+	 * Moves the stream to the given position while it is not connected. The range of the next connect request starts at
+	 * position, so it is set to the start of the stripe and the whole stripe can be decrypted instead of skipping to the next one.
+	 */
+	private void moveTo(long position) {
+		var stripeStart = position - position % STRIPE_SIZE;
+		this.position = stripeStart;
+		this.connectPosition = stripeStart == position ? -1 : position;
+	}
 
-		private final InputStream in;
-		private final ByteBuffer buff;
-		private final InputStream out;
-		private final Cipher cipher;
-		private long i;
-		private boolean filled;
+	@Override
+	public int read() throws IOException {
+		var read = this.read(this.singleByte, 0, 1);
+		return read == -1 ? -1 : this.singleByte[0] & 0xFF;
+	}
 
-		public DecryptingInputStream(InputStream in, byte[] keyMaterial, long position) throws IOException {
-			this.in = new BufferedInputStream(in);
-			this.buff = ByteBuffer.allocate(BLOCK_SIZE);
-			this.out = new ByteBufferInputStream(this.buff);
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		var start = this.getPosition();
+		var read = this.readContent(b, off, len);
+		if (this.cacheWriter != null) {
+			if (read == -1) {
+				this.cacheWriter.complete(this.totalLength);
+			} else if (read > 0) {
+				this.cacheWriter.write(start, b, off, read);
+			}
+		}
+		return read;
+	}
 
-			try {
-				cipher = Cipher.getInstance("Blowfish/CBC/NoPadding");
-				cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyMaterial, "Blowfish"), new IvParameterSpec(iv));
-			} catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-			         InvalidAlgorithmParameterException e) {
-				throw new IOException(e);
+	@Override
+	public long skip(long n) throws IOException {
+		// skipped bytes go through read as well, so they come from the window and reach the cache writer without leaving a gap
+		if (this.skipBuffer == null) {
+			this.skipBuffer = new byte[STRIPE_SIZE];
+		}
+		var skipped = 0L;
+		while (skipped < n) {
+			var read = this.read(this.skipBuffer, 0, (int) Math.min(n - skipped, this.skipBuffer.length));
+			if (read == -1) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	private int readContent(byte[] b, int off, int len) throws IOException {
+		var position = this.getPosition();
+		var stripe = this.getWindowStripe(position);
+		if (stripe == null || len == 0) {
+			return super.read(b, off, len);
+		}
+		var offset = (int) (position % STRIPE_SIZE);
+		var read = Math.min(len, STRIPE_SIZE - offset);
+		System.arraycopy(stripe, offset, b, off, read);
+		this.moveTo(position + read);
+		return read;
+	}
+
+	/**
+	 * Returns the decrypted stripe at the current position if it is still in the window and there is no open connection,
+	 * so seeking back within the window needs no network I/O.
+	 */
+	private byte[] getWindowStripe(long position) {
+		if (this.connected) {
+			return null;
+		}
+		return this.window.get(position / STRIPE_SIZE);
+	}
+
+	@Override
+	protected void seekHard(long position) throws IOException {
+		super.seekHard(position);
+		this.moveTo(position);
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (this.connected) {
+			// reconnects after network errors also start here
+			this.connected = false;
+			this.moveTo(this.position);
+		}
+	}
+
+	private static class StripeWindow {
+
+		private final int capacity;
+		private final LinkedHashMap<Long, byte[]> stripes;
+		private final ArrayDeque<byte[]> unused = new ArrayDeque<>();
+
+		private StripeWindow(int capacity) {
+			this.capacity = capacity;
+			this.stripes = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+					if (size() > StripeWindow.this.capacity) {
+						// reuse the evicted arrays, so filling the window allocates nothing once it is full
+						StripeWindow.this.unused.add(eldest.getValue());
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		private byte[] get(long index) {
+			return this.stripes.get(index);
+		}
+
+		private void put(long index, byte[] stripe) {
+			var copy = this.stripes.get(index);
+			if (copy == null) {
+				copy = this.unused.isEmpty() ? new byte[STRIPE_SIZE] : this.unused.poll();
 			}
+			System.arraycopy(stripe, 0, copy, 0, STRIPE_SIZE);
+			this.stripes.put(index, copy);
+		}
+
+	}
+
+	private static class DecryptingInputStream extends InputStream {
+
+		private final InputStream in;
+		private final DeezerStripeDecryptor decryptor;
+		private final StripeWindow window;
+		// every block is decrypted in place, so reading the stream allocates nothing per block
+		private final byte[] block = new byte[STRIPE_SIZE];
+		private int blockLength;
+		private int blockPosition;
+		private long i;
+
+		public DecryptingInputStream(InputStream in, DeezerStripeDecryptor decryptor, StripeWindow window, long position) throws IOException {
+			this.in = in;
+			this.decryptor = decryptor;
+			this.window = window;
 
-			i = Math.max(0, position / BLOCK_SIZE);
-			var remainingBytesInChunk = ((i + 1) * BLOCK_SIZE) - position;
-			if (remainingBytesInChunk < 2048) {
+			i = Math.max(0, position / STRIPE_SIZE);
+			var remainingBytesInChunk = ((i + 1) * STRIPE_SIZE) - position;
+			if (remainingBytesInChunk < STRIPE_SIZE) {
+				// only happens if the request was not aligned to a stripe, the partial stripe can't be decrypted
 				in.skip(remainingBytesInChunk);
 				i++;
 			}
 		}
 
-		@Override
-		public int read() throws IOException {
-			if (this.filled && this.out.available() > 0) {
-				return this.out.read();
+		private void discard(long count) throws IOException {
+			while (count > 0) {
+				if (this.blockPosition >= this.blockLength && !this.fill()) {
+					return;
+				}
+				var skipped = (int) Math.min(count, this.blockLength - this.blockPosition);
+				this.blockPosition += skipped;
+				count -= skipped;
 			}
-			var chunk = this.in.readNBytes(BLOCK_SIZE);
-			this.buff.clear();
-			this.filled = true;
-			if (this.i % 3 > 0 || chunk.length < BLOCK_SIZE) {
-				this.buff.put(chunk);
-			} else {
-				byte[] decryptedChunk;
-				try {
-					decryptedChunk = this.cipher.doFinal(chunk);
-				} catch (IllegalBlockSizeException | BadPaddingException e) {
-					throw new RuntimeException(e);
+		}
+
+		private boolean fill() throws IOException {
+			this.blockPosition = 0;
+			this.blockLength = this.in.readNBytes(this.block, 0, STRIPE_SIZE);
+			if (this.blockLength == STRIPE_SIZE) {
+				if (this.i % 3 == 0) {
+					this.decryptor.decrypt(this.block, 0, STRIPE_SIZE);
 				}
-				this.buff.put(decryptedChunk);
+				this.window.put(this.i, this.block);
 			}
 			i++;
-			this.buff.flip();
-			return this.out.read();
+			return this.blockLength > 0;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (this.blockPosition >= this.blockLength && !this.fill()) {
+				return -1;
+			}
+			return this.block[this.blockPosition++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (this.blockPosition >= this.blockLength && !this.fill()) {
+				return -1;
+			}
+			var read = Math.min(len, this.blockLength - this.blockPosition);
+			System.arraycopy(this.block, this.blockPosition, b, off, read);
+			this.blockPosition += read;
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return this.blockLength - this.blockPosition;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
 		}
 
 	}
@@ -0,0 +1,43 @@
+package com.github.topi314.lavasrc.deezer;
+
+import java.time.Instant;
+
+/**
+ * The session ID, license token and API token ({@code checkForm}) needed to resolve Deezer media URLs.
+ * They are the same for every track, so one session is shared until it expires or gets rejected.
+ */
+public class DeezerSession {
+
+	private final String sessionID;
+	private final String licenseToken;
+	private final String apiToken;
+	private final Instant expire;
+
+	public DeezerSession(String sessionID, String licenseToken, String apiToken, Instant expire) {
+		this.sessionID = sessionID;
+		this.licenseToken = licenseToken;
+		this.apiToken = apiToken;
+		this.expire = expire;
+	}
+
+	public String getSessionID() {
+		return this.sessionID;
+	}
+
+	public String getLicenseToken() {
+		return this.licenseToken;
+	}
+
+	public String getApiToken() {
+		return this.apiToken;
+	}
+
+	public Instant getExpire() {
+		return this.expire;
+	}
+
+	public boolean isExpired() {
+		return this.expire.isBefore(Instant.now());
+	}
+
+}
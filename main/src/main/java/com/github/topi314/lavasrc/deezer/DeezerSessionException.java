@@ -0,0 +1,19 @@
+package com.github.topi314.lavasrc.deezer;
+
+/**
+ * Thrown when a Deezer API call fails. {@link #isSessionError()} tells whether the shared session was rejected and should be renewed.
+ */
+public class DeezerSessionException extends IllegalStateException {
+
+	private final boolean sessionError;
+
+	public DeezerSessionException(String message, boolean sessionError) {
+		super(message);
+		this.sessionError = sessionError;
+	}
+
+	public boolean isSessionError() {
+		return this.sessionError;
+	}
+
+}
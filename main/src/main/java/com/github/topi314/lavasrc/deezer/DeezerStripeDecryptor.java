@@ -0,0 +1,12 @@
+package com.github.topi314.lavasrc.deezer;
+
+import java.io.IOException;
+
+/**
+ * Decrypts the Blowfish CBC encrypted stripes of a Deezer stream in place. Every stripe starts from the same fixed iv.
+ */
+public interface DeezerStripeDecryptor {
+
+	void decrypt(byte[] buffer, int offset, int length) throws IOException;
+
+}
@@ -0,0 +1,86 @@
+package com.github.topi314.lavasrc.deezer;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
+import com.sedmelluq.discord.lavaplayer.track.info.AudioTrackInfoProvider;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link SeekableInputStream} over a memory-mapped local file, seeking anywhere in it is free.
+ */
+public class MappedSeekableInputStream extends SeekableInputStream {
+
+	private final MappedByteBuffer buffer;
+
+	private MappedSeekableInputStream(MappedByteBuffer buffer) {
+		super(buffer.capacity(), 0);
+		this.buffer = buffer;
+	}
+
+	public static MappedSeekableInputStream open(Path path) throws IOException {
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			return new MappedSeekableInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	@Override
+	public long getPosition() {
+		return this.buffer.position();
+	}
+
+	@Override
+	protected void seekHard(long position) {
+		this.buffer.position((int) Math.min(position, this.buffer.limit()));
+	}
+
+	@Override
+	public boolean canSeekHard() {
+		return true;
+	}
+
+	@Override
+	public List<AudioTrackInfoProvider> getTrackInfoProviders() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public int read() {
+		if (!this.buffer.hasRemaining()) {
+			return -1;
+		}
+		return this.buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (!this.buffer.hasRemaining()) {
+			return -1;
+		}
+		var read = Math.min(len, this.buffer.remaining());
+		this.buffer.get(b, off, read);
+		return read;
+	}
+
+	@Override
+	public long skip(long n) {
+		var skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+		this.buffer.position(this.buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return this.buffer.remaining();
+	}
+
+}
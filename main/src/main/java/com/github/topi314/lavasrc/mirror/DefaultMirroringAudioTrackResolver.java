@@ -22,6 +22,18 @@ public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackRe
 		}
 	}
 
+	/**
+	 * Returns whether any provider searches by ISRC, so tracks need their ISRC to be mirrored.
+	 */
+	public boolean usesIsrc() {
+		for (var provider : this.providers) {
+			if (provider.contains(MirroringAudioSourceManager.ISRC_PATTERN)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public AudioItem apply(MirroringAudioTrack mirroringAudioTrack) {
 		AudioItem track = AudioReference.NO_TRACK;
@@ -0,0 +1,65 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores Spotify access tokens in a local file, one {@code clientId token expireEpochSecond} line per client.
+ * The file is only readable by the owner where the file system supports it, as the tokens grant API access.
+ */
+public class FileSpotifyTokenStore implements SpotifyTokenStore {
+
+	private final Path path;
+
+	public FileSpotifyTokenStore(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public Map<String, SpotifyToken> load() throws IOException {
+		var tokens = new HashMap<String, SpotifyToken>();
+		if (!Files.exists(this.path)) {
+			return tokens;
+		}
+		for (var line : Files.readAllLines(this.path, StandardCharsets.UTF_8)) {
+			var parts = line.split(" ");
+			if (parts.length != 3) {
+				continue;
+			}
+			try {
+				tokens.put(parts[0], new SpotifyToken(parts[1], Instant.ofEpochSecond(Long.parseLong(parts[2]))));
+			} catch (NumberFormatException ignored) {
+			}
+		}
+		return tokens;
+	}
+
+	@Override
+	public void save(Map<String, SpotifyToken> tokens) throws IOException {
+		var lines = new ArrayList<String>(tokens.size());
+		tokens.forEach((clientID, token) -> lines.add(clientID + " " + token.getToken() + " " + token.getExpire().getEpochSecond()));
+
+		var parent = this.path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		// write to a temporary file first, so a crash while saving never leaves a half written file behind
+		var tmp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		Files.deleteIfExists(tmp);
+		try {
+			// created owner-only before anything is written, so the tokens are never readable by others
+			Files.createFile(tmp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			Files.createFile(tmp);
+		}
+		Files.write(tmp, lines, StandardCharsets.UTF_8, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		Files.move(tmp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers single id lookups which arrive within a short window into one batch request.
+ * Batches are kept per guild as each guild may use different {@link SpotifyCredentials}.
+ * The scheduler only times the windows, the batch requests run on the executor, so slow requests don't delay other windows.
+ */
+public class SpotifyBatchCoalescer<T> {
+
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+	private final Duration window;
+	private final int maxBatchSize;
+	private final BatchLoader<T> loader;
+	private final Map<Long, Batch<T>> batches = new HashMap<>();
+
+	public SpotifyBatchCoalescer(ScheduledExecutorService scheduler, Executor executor, Duration window, int maxBatchSize, BatchLoader<T> loader) {
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+		this.loader = loader;
+	}
+
+	public CompletableFuture<T> load(String id, long guildID) {
+		CompletableFuture<T> future;
+		Batch<T> fullBatch = null;
+		synchronized (this.batches) {
+			var batch = this.batches.get(guildID);
+			if (batch == null) {
+				batch = new Batch<>(guildID);
+				this.batches.put(guildID, batch);
+				var scheduled = batch;
+				try {
+					this.scheduler.schedule(() -> this.flush(scheduled), this.window.toNanos(), TimeUnit.NANOSECONDS);
+				} catch (RejectedExecutionException e) {
+					this.batches.remove(guildID);
+					return CompletableFuture.failedFuture(e);
+				}
+			}
+			future = batch.futures.computeIfAbsent(id, unused -> new CompletableFuture<>());
+			if (batch.futures.size() >= this.maxBatchSize) {
+				this.batches.remove(guildID);
+				fullBatch = batch;
+			}
+		}
+
+		if (fullBatch != null) {
+			this.dispatch(fullBatch);
+		}
+		return future;
+	}
+
+	private void flush(Batch<T> batch) {
+		synchronized (this.batches) {
+			// the batch might have been sent early because it was full
+			if (this.batches.get(batch.guildID) != batch) {
+				return;
+			}
+			this.batches.remove(batch.guildID);
+		}
+		this.dispatch(batch);
+	}
+
+	private void dispatch(Batch<T> batch) {
+		try {
+			this.executor.execute(() -> this.run(batch));
+		} catch (RejectedExecutionException e) {
+			batch.futures.values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+
+	private void run(Batch<T> batch) {
+		try {
+			var results = this.loader.load(new ArrayList<>(batch.futures.keySet()), batch.guildID);
+			batch.futures.forEach((id, future) -> future.complete(results.get(id)));
+		} catch (Throwable e) {
+			batch.futures.values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+
+	@FunctionalInterface
+	public interface BatchLoader<T> {
+		Map<String, T> load(List<String> ids, long guildID) throws IOException;
+	}
+
+	private static class Batch<T> {
+		private final long guildID;
+		private final Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+
+		private Batch(long guildID) {
+			this.guildID = guildID;
+		}
+	}
+
+}
@@ -7,13 +7,16 @@ package com.github.topi314.lavasrc.spotify;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 public class SpotifyCredentials implements Serializable {
     private final String clientID;
     private final String clientSecret;
     private final String countryCode;
-    private String token;
-    private Instant tokenExpire;
+    // token and expiry are published together, so readers never see a new token with the old expiry
+    private volatile SpotifyToken accessToken;
+    private transient CompletableFuture<Void> pendingRefresh;
+    private transient SpotifyRateLimiter rateLimiter;
 
     public SpotifyCredentials(String clientID, String clientSecret, String countryCode) {
         this.clientID = clientID;
@@ -37,19 +40,61 @@ public class SpotifyCredentials implements Serializable {
         return this.countryCode;
     }
 
+    public SpotifyToken getAccessToken() {
+        return this.accessToken;
+    }
+
+    public void setAccessToken(SpotifyToken accessToken) {
+        this.accessToken = accessToken;
+    }
+
     public String getToken() {
-        return this.token;
+        var accessToken = this.accessToken;
+        return accessToken == null ? null : accessToken.getToken();
     }
 
     public Instant getTokenExpire() {
-        return this.tokenExpire;
+        var accessToken = this.accessToken;
+        return accessToken == null ? null : accessToken.getExpire();
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    /**
+     * @deprecated use {@link #setAccessToken(SpotifyToken)}, which sets the token and its expiry at once
+     */
+    @Deprecated
+    public synchronized void setToken(String token) {
+        this.accessToken = new SpotifyToken(token, this.getTokenExpire());
     }
 
-    public void setTokenExpire(Instant tokenExpire) {
-        this.tokenExpire = tokenExpire;
+    /**
+     * @deprecated use {@link #setAccessToken(SpotifyToken)}, which sets the token and its expiry at once
+     */
+    @Deprecated
+    public synchronized void setTokenExpire(Instant tokenExpire) {
+        this.accessToken = new SpotifyToken(this.getToken(), tokenExpire);
+    }
+
+    public synchronized SpotifyRateLimiter getRateLimiter() {
+        if (this.rateLimiter == null) {
+            this.rateLimiter = new SpotifyRateLimiter();
+        }
+        return this.rateLimiter;
+    }
+
+    /**
+     * Registers the given refresh as the in-flight token refresh unless another one is already running.
+     * Returns the refresh every caller should wait on.
+     */
+    synchronized CompletableFuture<Void> beginRefresh(CompletableFuture<Void> refresh) {
+        if (this.pendingRefresh == null) {
+            this.pendingRefresh = refresh;
+        }
+        return this.pendingRefresh;
+    }
+
+    synchronized void endRefresh(CompletableFuture<Void> refresh) {
+        if (this.pendingRefresh == refresh) {
+            this.pendingRefresh = null;
+        }
     }
 }
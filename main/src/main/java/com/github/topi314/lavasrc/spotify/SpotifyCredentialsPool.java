@@ -0,0 +1,54 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Spreads requests over multiple Spotify clients using smooth weighted round-robin.
+ * The weight of each client is the current rate of its {@link SpotifyRateLimiter}, so clients which get rate limited often receive less traffic
+ * and clients paused by a Retry-After receive none until their pause is over.
+ */
+public class SpotifyCredentialsPool {
+
+	private final List<SpotifyCredentials> credentials;
+	private final double[] currentWeights;
+
+	public SpotifyCredentialsPool(List<SpotifyCredentials> credentials) {
+		if (credentials == null || credentials.isEmpty()) {
+			throw new IllegalArgumentException("Spotify credentials pool must not be empty");
+		}
+		this.credentials = List.copyOf(credentials);
+		this.currentWeights = new double[this.credentials.size()];
+	}
+
+	public synchronized SpotifyCredentials next() {
+		var best = -1;
+		var totalWeight = 0d;
+		for (var i = 0; i < this.credentials.size(); i++) {
+			var rateLimiter = this.credentials.get(i).getRateLimiter();
+			if (!rateLimiter.getRemainingPause().isZero()) {
+				continue;
+			}
+			var weight = rateLimiter.getRate();
+			this.currentWeights[i] += weight;
+			totalWeight += weight;
+			if (best == -1 || this.currentWeights[i] > this.currentWeights[best]) {
+				best = i;
+			}
+		}
+
+		if (best == -1) {
+			// every client is paused, use the one which resumes first
+			return this.credentials.stream()
+				.min(Comparator.comparing(creds -> creds.getRateLimiter().getRemainingPause()))
+				.orElseThrow();
+		}
+		this.currentWeights[best] -= totalWeight;
+		return this.credentials.get(best);
+	}
+
+	public List<SpotifyCredentials> getCredentials() {
+		return this.credentials;
+	}
+
+}
@@ -0,0 +1,192 @@
+package com.github.topi314.lavasrc.spotify;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link SpotifyCredentials} of each guild.
+ * Credentials which were not used for {@link #setIdleTimeout(Duration) some time} are evicted, and the registry can be capped to a maximum size.
+ * Evicted or never registered credentials are loaded again through the {@link SpotifyCredentialsLoader} if one is set,
+ * guilds the loader has no credentials for are remembered for {@link #MISSING_CREDENTIALS_TTL}.
+ * The default credentials are never evicted.
+ */
+public class SpotifyCredentialsRegistry {
+
+	public static final Duration MISSING_CREDENTIALS_TTL = Duration.ofMinutes(1);
+
+	private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+	private final Map<Long, CompletableFuture<Entry>> pendingLoads = new ConcurrentHashMap<>();
+	// guilds without own credentials, mapped to the System.nanoTime() until which they are not loaded again
+	private final Map<Long, Long> missing = new ConcurrentHashMap<>();
+	private volatile SpotifyCredentialsLoader loader;
+	private volatile long idleTimeoutNanos;
+	private volatile int maxSize;
+
+	public void setLoader(@Nullable SpotifyCredentialsLoader loader) {
+		this.loader = loader;
+	}
+
+	/**
+	 * @param idleTimeout how long credentials may be unused before they are evicted, zero disables idle eviction
+	 */
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeoutNanos = idleTimeout.toNanos();
+	}
+
+	/**
+	 * @param maxSize the maximum number of guild credentials kept, zero means unbounded
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void put(long guildID, SpotifyCredentials credentials) {
+		this.entries.put(guildID, new Entry(credentials));
+		this.missing.remove(guildID);
+		this.evictOverflow();
+	}
+
+	@Nullable
+	public SpotifyCredentials remove(long guildID) {
+		var entry = this.entries.remove(guildID);
+		return entry == null ? null : entry.credentials;
+	}
+
+	/**
+	 * @return whether any registered guild uses the given client
+	 */
+	public boolean containsClient(String clientID) {
+		return this.entries.values().stream().anyMatch(entry -> entry.credentials.getClientID().equals(clientID));
+	}
+
+	@Nullable
+	public SpotifyCredentials get(long guildID) {
+		var entry = this.entries.get(guildID);
+		if (entry == null) {
+			var loader = this.loader;
+			if (loader == null) {
+				return null;
+			}
+			var missingUntil = this.missing.get(guildID);
+			if (missingUntil != null) {
+				if (missingUntil - System.nanoTime() > 0) {
+					return null;
+				}
+				this.missing.remove(guildID, missingUntil);
+			}
+			entry = this.load(loader, guildID);
+			if (entry == null) {
+				return null;
+			}
+		}
+		entry.lastAccess = System.nanoTime();
+		return entry.credentials;
+	}
+
+	/**
+	 * Loads the credentials of the given guild outside any map lock. Concurrent lookups of the same guild wait for the first one's load.
+	 */
+	@Nullable
+	private Entry load(SpotifyCredentialsLoader loader, long guildID) {
+		var future = new CompletableFuture<Entry>();
+		var pending = this.pendingLoads.putIfAbsent(guildID, future);
+		if (pending != null) {
+			try {
+				return pending.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		try {
+			var credentials = loader.load(guildID);
+			Entry entry = null;
+			if (credentials == null) {
+				this.missing.put(guildID, System.nanoTime() + MISSING_CREDENTIALS_TTL.toNanos());
+			} else {
+				entry = new Entry(credentials);
+				var existing = this.entries.putIfAbsent(guildID, entry);
+				if (existing != null) {
+					entry = existing;
+				} else {
+					this.evictOverflow();
+				}
+			}
+			future.complete(entry);
+			return entry;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.pendingLoads.remove(guildID, future);
+		}
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Evicts all credentials which were not used within the idle timeout and forgets expired missing credentials. This is called periodically by the {@link SpotifySourceManager}.
+	 */
+	public void evictIdle() {
+		var now = System.nanoTime();
+		this.missing.values().removeIf(missingUntil -> missingUntil - now <= 0);
+		var idleTimeoutNanos = this.idleTimeoutNanos;
+		if (idleTimeoutNanos <= 0) {
+			return;
+		}
+		this.entries.entrySet().removeIf(entry -> entry.getKey() != SpotifySourceManager.DEFAULT_GUILD_ID && now - entry.getValue().lastAccess > idleTimeoutNanos);
+	}
+
+	private void evictOverflow() {
+		var maxSize = this.maxSize;
+		if (maxSize <= 0 || this.entries.size() <= maxSize) {
+			return;
+		}
+		synchronized (this) {
+			var overflow = this.entries.size() - maxSize;
+			if (overflow <= 0) {
+				return;
+			}
+			// evict a tenth more than needed so we don't have to sort on every insert
+			this.entries.entrySet().stream()
+				.filter(entry -> entry.getKey() != SpotifySourceManager.DEFAULT_GUILD_ID)
+				.sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+				.limit(overflow + maxSize / 10)
+				.map(Map.Entry::getKey)
+				.forEach(this.entries::remove);
+		}
+	}
+
+	@FunctionalInterface
+	public interface SpotifyCredentialsLoader {
+		/**
+		 * Loads the credentials of a guild which are not registered (anymore).
+		 * Guilds it has no credentials for are only looked up again after {@link #MISSING_CREDENTIALS_TTL}.
+		 *
+		 * @return the credentials or null if the guild has none and should use the default credentials
+		 */
+		@Nullable
+		SpotifyCredentials load(long guildID);
+	}
+
+	private static class Entry {
+		private final SpotifyCredentials credentials;
+		private volatile long lastAccess = System.nanoTime();
+
+		private Entry(SpotifyCredentials credentials) {
+			this.credentials = credentials;
+		}
+	}
+
+}
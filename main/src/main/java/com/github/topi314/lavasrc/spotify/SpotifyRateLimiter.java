@@ -0,0 +1,118 @@
+package com.github.topi314.lavasrc.spotify;
+
+import com.github.topi314.lavasrc.RateLimitException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the requests sent with one set of {@link SpotifyCredentials}.
+ * Spotify does not publish its limit, so the rate is lowered whenever we get throttled and slowly raised again on success.
+ * While a Retry-After pause is active all callers wait instead of sending requests.
+ */
+public class SpotifyRateLimiter {
+
+	public static final double DEFAULT_MAX_RATE = 20;
+	public static final double MIN_RATE = 1;
+	// increase of the rate per successful request
+	private static final double RATE_INCREASE = 0.05;
+	// requests never wait longer than this for a permit, they fail instead
+	private static final Duration MAX_WAIT = Duration.ofSeconds(30);
+
+	private final double maxRate;
+	private double rate;
+	private double permits;
+	private long lastRefill;
+	private long pausedUntil;
+	private long throttles;
+
+	public SpotifyRateLimiter() {
+		this(DEFAULT_MAX_RATE);
+	}
+
+	/**
+	 * @param maxRate the maximum number of requests per second
+	 */
+	public SpotifyRateLimiter(double maxRate) {
+		this.maxRate = Math.max(MIN_RATE, maxRate);
+		this.rate = this.maxRate;
+		this.permits = this.maxRate;
+		this.lastRefill = System.nanoTime();
+		this.pausedUntil = this.lastRefill;
+	}
+
+	/**
+	 * Blocks until a request may be sent.
+	 *
+	 * @throws RateLimitException if the request would have to wait longer than 30 seconds
+	 */
+	public void acquire() throws InterruptedException {
+		var deadline = System.nanoTime() + MAX_WAIT.toNanos();
+		while (true) {
+			var wait = this.tryAcquire();
+			if (wait <= 0) {
+				return;
+			}
+			var now = System.nanoTime();
+			if (now + wait - deadline > 0) {
+				throw new RateLimitException(Duration.ofNanos(wait));
+			}
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	/**
+	 * Takes a permit if one is available.
+	 *
+	 * @return 0 if a permit was taken, otherwise the nanoseconds to wait before trying again
+	 */
+	private synchronized long tryAcquire() {
+		var now = System.nanoTime();
+		if (now - this.pausedUntil < 0) {
+			return this.pausedUntil - now;
+		}
+		this.permits = Math.min(this.rate, this.permits + (now - this.lastRefill) * this.rate / TimeUnit.SECONDS.toNanos(1));
+		this.lastRefill = now;
+		if (this.permits >= 1) {
+			this.permits--;
+			return 0;
+		}
+		return (long) Math.ceil((1 - this.permits) * TimeUnit.SECONDS.toNanos(1) / this.rate);
+	}
+
+	/**
+	 * Pauses all requests for the given duration and lowers the rate.
+	 */
+	public synchronized void throttle(Duration retryAfter) {
+		this.throttles++;
+		this.rate = Math.max(MIN_RATE, this.rate / 2);
+		this.permits = 0;
+		var until = System.nanoTime() + retryAfter.toNanos();
+		if (until - this.pausedUntil > 0) {
+			this.pausedUntil = until;
+		}
+	}
+
+	public synchronized void onSuccess() {
+		this.rate = Math.min(this.maxRate, this.rate + RATE_INCREASE);
+	}
+
+	public synchronized double getRate() {
+		return this.rate;
+	}
+
+	/**
+	 * @return how long requests are still paused because of a Retry-After, or {@link Duration#ZERO}
+	 */
+	public synchronized Duration getRemainingPause() {
+		return Duration.ofNanos(Math.max(0, this.pausedUntil - System.nanoTime()));
+	}
+
+	/**
+	 * @return how often requests were rate limited so far
+	 */
+	public synchronized long getThrottles() {
+		return this.throttles;
+	}
+
+}
@@ -5,12 +5,17 @@ import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.RateLimitException;
+import com.github.topi314.lavasrc.cache.LruResponseCache;
+import com.github.topi314.lavasrc.cache.ResponseCache;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.spotify.data.SpotifyArtistInfo;
 import com.github.topi314.lavasrc.spotify.data.SpotifyTrackFeatures;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
@@ -31,8 +36,10 @@ import java.io.DataInput;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -47,31 +54,163 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	public static final long PREVIEW_LENGTH = 30000;
 	public static final int PLAYLIST_MAX_PAGE_ITEMS = 100;
 	public static final int ALBUM_MAX_PAGE_ITEMS = 50;
+	public static final int TRACKS_MAX_IDS = 50;
+	public static final int DEFAULT_PAGE_LOAD_CONCURRENCY = 4;
+	public static final long DEFAULT_GUILD_ID = -1L;
+	public static final Duration CREDENTIALS_EVICTION_INTERVAL = Duration.ofMinutes(1);
+	// tokens are refreshed in the background once they are this close to expiring
+	public static final Duration TOKEN_REFRESH_AHEAD = Duration.ofMinutes(5);
+	public static final int MAX_RATE_LIMIT_RETRIES = 3;
+	public static final int AUDIO_FEATURES_MAX_IDS = 100;
+	public static final int ARTISTS_MAX_IDS = 50;
+	public static final long ARTIST_ARTWORK_CACHE_SIZE = 1024 * 1024;
+	public static final Duration ARTIST_ARTWORK_TTL = Duration.ofDays(1);
+	// single id lookups arriving within this window are sent as one batch request
+	public static final Duration BATCH_WINDOW = Duration.ofMillis(5);
+	public static final int BATCH_LOAD_THREADS = 4;
 	public static final String API_BASE = "https://api.spotify.com/v1/";
+	// the track fields parseTrack reads, used to project playlist responses
+	public static final String TRACK_FIELDS = "name,id,is_local,duration_ms,preview_url,external_urls(spotify),external_ids(isrc),artists(name,external_urls(spotify)),album(name,external_urls(spotify),images(url))";
+	public static final String PLAYLIST_TRACKS_FIELDS = "next,total,items(track(" + TRACK_FIELDS + "))";
+	public static final String PLAYLIST_FIELDS = "name,external_urls(spotify),images(url),owner(display_name),tracks(" + PLAYLIST_TRACKS_FIELDS + ")";
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.ARTIST, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.TRACK);
 	private static final Logger log = LoggerFactory.getLogger(SpotifySourceManager.class);
 	private final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
 
-	private HashMap<Long, SpotifyCredentials> GUILD_SPOTIFY = new HashMap();
+	private final SpotifyCredentialsRegistry credentialsRegistry = new SpotifyCredentialsRegistry();
+	private volatile SpotifyCredentialsPool defaultCredentialsPool;
+	private SpotifyTokenStore tokenStore;
+	// latest token of each client id, only tracked when a token store is set
+	private final Map<String, SpotifyToken> storedTokens = new ConcurrentHashMap<>();
+	private final ExecutorService tokenExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("spotify-token-refresher"));
 	private int playlistPageLimit = 6;
 	private int albumPageLimit = 6;
+	private ExecutorService pageExecutor = createPageExecutor(DEFAULT_PAGE_LOAD_CONCURRENCY);
+	private boolean fieldProjection = true;
+	private ResponseCache responseCache;
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, new DaemonThreadFactory("spotify-scheduler"));
+	private final ExecutorService batchExecutor = Executors.newFixedThreadPool(BATCH_LOAD_THREADS, new DaemonThreadFactory("spotify-batch-loader"));
+	private final SpotifyBatchCoalescer<SpotifyTrackFeatures> trackFeaturesCoalescer = new SpotifyBatchCoalescer<>(this.scheduler, this.batchExecutor, BATCH_WINDOW, AUDIO_FEATURES_MAX_IDS, this::getTrackFeatures);
+	private final SpotifyBatchCoalescer<SpotifyArtistInfo> artistInfoCoalescer = new SpotifyBatchCoalescer<>(this.scheduler, this.batchExecutor, BATCH_WINDOW, ARTISTS_MAX_IDS, this::getArtistInfo);
+	private volatile boolean resolveArtistArtwork;
+	private final LruResponseCache artistArtworkCache = new LruResponseCache(ARTIST_ARTWORK_CACHE_SIZE);
+	private final SpotifyBatchCoalescer<String> artistArtworkCoalescer = new SpotifyBatchCoalescer<>(this.scheduler, this.batchExecutor, BATCH_WINDOW, ARTISTS_MAX_IDS, this::getArtistArtwork);
 
 	public void registerSpotifyCredentials(String clientID, String clientSecret, String countryCode, long guildID) {
 		if (countryCode == null || countryCode.isEmpty()) {
 			countryCode = "US";
 		}
 
-		this.GUILD_SPOTIFY.put(guildID, new SpotifyCredentials(clientID, clientSecret, countryCode));
+		this.credentialsRegistry.put(guildID, new SpotifyCredentials(clientID, clientSecret, countryCode));
 	}
 
 	public void unregisterSpotifyCredentials(long guildID) {
-		this.GUILD_SPOTIFY.remove(guildID);
+		var creds = this.credentialsRegistry.remove(guildID);
+		if (creds != null) {
+			this.forgetToken(creds.getClientID());
+		}
+	}
+
+	/**
+	 * Sets a loader for guild credentials which are not registered, either because they were evicted or because they are only loaded on demand.
+	 */
+	public void setCredentialsLoader(SpotifyCredentialsRegistry.SpotifyCredentialsLoader loader) {
+		this.credentialsRegistry.setLoader(loader);
+	}
+
+	/**
+	 * Sets how long guild credentials may be unused before they are evicted. Zero keeps them until they are unregistered.
+	 */
+	public void setCredentialsIdleTimeout(Duration idleTimeout) {
+		this.credentialsRegistry.setIdleTimeout(idleTimeout);
+	}
+
+	/**
+	 * Sets the maximum number of guild credentials kept in memory, the least recently used are evicted first. Zero means unbounded.
+	 */
+	public void setMaxCredentials(int maxCredentials) {
+		this.credentialsRegistry.setMaxSize(maxCredentials);
+	}
+
+	/**
+	 * Sets a store to persist tokens across restarts. Still valid tokens are loaded right away and used instead of requesting new ones,
+	 * all tokens are saved again on {@link #shutdown()}.
+	 */
+	public void setTokenStore(SpotifyTokenStore tokenStore) {
+		this.tokenStore = tokenStore;
+		if (tokenStore == null) {
+			return;
+		}
+		try {
+			tokenStore.load().forEach((clientID, token) -> {
+				if (token.isValidFor(TOKEN_REFRESH_AHEAD)) {
+					this.storedTokens.put(clientID, token);
+				}
+			});
+			log.info("Loaded {} stored Spotify tokens", this.storedTokens.size());
+		} catch (IOException e) {
+			log.error("Failed to load stored Spotify tokens", e);
+		}
 	}
 
+	/**
+	 * Drops the stored token of a client which was removed, unless another guild or the pool still uses it.
+	 */
+	private void forgetToken(String clientID) {
+		var pool = this.defaultCredentialsPool;
+		if (this.credentialsRegistry.containsClient(clientID) || (pool != null && pool.getCredentials().stream().anyMatch(creds -> creds.getClientID().equals(clientID)))) {
+			return;
+		}
+		this.storedTokens.remove(clientID);
+	}
 
+	private void saveTokens() {
+		if (this.tokenStore == null) {
+			return;
+		}
+		this.storedTokens.values().removeIf(token -> !token.isValidFor(TOKEN_REFRESH_AHEAD));
+		try {
+			this.tokenStore.save(new HashMap<>(this.storedTokens));
+		} catch (IOException e) {
+			log.error("Failed to save Spotify tokens", e);
+		}
+	}
+
+	/**
+	 * Registers a pool of clients used for all guilds without their own credentials, taking precedence over the default credentials.
+	 * Requests are spread over the pool depending on how often each client gets rate limited.
+	 */
+	public void registerSpotifyCredentialsPool(List<SpotifyCredentials> credentials) {
+		this.defaultCredentialsPool = new SpotifyCredentialsPool(credentials);
+	}
+
+	public void unregisterSpotifyCredentialsPool() {
+		var pool = this.defaultCredentialsPool;
+		this.defaultCredentialsPool = null;
+		if (pool != null) {
+			pool.getCredentials().forEach(creds -> this.forgetToken(creds.getClientID()));
+		}
+	}
+
+	public SpotifyCredentials getCredentials(long guildID) {
+		var creds = guildID == DEFAULT_GUILD_ID ? null : this.credentialsRegistry.get(guildID);
+		var pool = this.defaultCredentialsPool;
+		if (creds == null && pool != null) {
+			creds = pool.next();
+		}
+		if (creds == null) {
+			creds = this.credentialsRegistry.get(DEFAULT_GUILD_ID);
+		}
+		if (creds == null) {
+			throw new IllegalStateException("No Spotify credentials registered for guild " + guildID + " and no default credentials registered");
+		}
+		return creds;
+	}
 
 	public SpotifySourceManager(String[] providers, AudioPlayerManager audioPlayerManager) {
 		super(audioPlayerManager, new DefaultMirroringAudioTrackResolver(providers));
+		var interval = CREDENTIALS_EVICTION_INTERVAL.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this.credentialsRegistry::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
 	}
 
 	public void setPlaylistPageLimit(int playlistPageLimit) {
@@ -82,6 +221,43 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 		this.albumPageLimit = albumPageLimit;
 	}
 
+	/**
+	 * Sets how many playlist pages are fetched at the same time. A value of 1 or less fetches pages one after another.
+	 */
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		var oldExecutor = this.pageExecutor;
+		this.pageExecutor = createPageExecutor(pageLoadConcurrency);
+		if (oldExecutor != null) {
+			oldExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Sets whether playlist requests only ask Spotify for the fields we actually read, which drops most of the response size.
+	 */
+	public void setFieldProjection(boolean fieldProjection) {
+		this.fieldProjection = fieldProjection;
+	}
+
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	/**
+	 * Track objects carry no artist images. When enabled, the artist artwork of loaded tracks is looked up in the background,
+	 * batched with the lookups of other tracks, and is null until the lookup finished.
+	 */
+	public void setResolveArtistArtwork(boolean resolveArtistArtwork) {
+		this.resolveArtistArtwork = resolveArtistArtwork;
+	}
+
+	private static ExecutorService createPageExecutor(int concurrency) {
+		if (concurrency <= 1) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("spotify-page-loader"));
+	}
+
 	@Override
 	public String getSourceName() {
 		return "spotify";
@@ -90,7 +266,7 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	@Override
 	public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
 		var extendedAudioTrackInfo = super.decodeTrack(input);
-		return new SpotifyAudioTrack(trackInfo,
+		var track = new SpotifyAudioTrack(trackInfo,
 			extendedAudioTrackInfo.albumName,
 			extendedAudioTrackInfo.albumUrl,
 			extendedAudioTrackInfo.artistUrl,
@@ -99,6 +275,9 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			extendedAudioTrackInfo.isPreview,
 			this
 		);
+		// tracks encoded before their artwork was resolved get it filled in now
+		this.deferArtistArtwork(track);
+		return track;
 	}
 
 	@Override
@@ -185,38 +364,164 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	}
 
 	public void requestToken(long guildID) throws IOException {
-		SpotifyCredentials creds = (SpotifyCredentials)this.GUILD_SPOTIFY.get(guildID);
-		if (creds == null) {
-			creds = (SpotifyCredentials)this.GUILD_SPOTIFY.get(-1L);
+		await(this.refreshToken(this.getCredentials(guildID), false));
+	}
+
+	public String getToken(long guildID) throws IOException {
+		return this.getToken(this.getCredentials(guildID));
+	}
+
+	private String getToken(SpotifyCredentials creds) throws IOException {
+		var accessToken = creds.getAccessToken();
+		var now = Instant.now();
+
+		if (accessToken == null && this.tokenStore != null) {
+			var storedToken = this.storedTokens.get(creds.getClientID());
+			if (storedToken != null && storedToken.getExpire().isAfter(now)) {
+				creds.setAccessToken(storedToken);
+				accessToken = storedToken;
+			}
+		}
+
+		if (accessToken == null || accessToken.getToken() == null || accessToken.getExpire() == null || accessToken.getExpire().isBefore(now)) {
+			await(this.refreshToken(creds, false));
+			return creds.getAccessToken().getToken();
+		}
+
+		if (accessToken.getExpire().minus(TOKEN_REFRESH_AHEAD).isBefore(now)) {
+			this.refreshToken(creds, true);
+		}
+		return accessToken.getToken();
+	}
+
+	/**
+	 * Refreshes the token of the given credentials. Concurrent callers share the same in-flight refresh instead of each requesting a new token.
+	 */
+	private CompletableFuture<Void> refreshToken(SpotifyCredentials creds, boolean async) {
+		var refresh = new CompletableFuture<Void>();
+		var pending = creds.beginRefresh(refresh);
+		if (pending != refresh) {
+			return pending;
+		}
+
+		Runnable task = () -> {
+			try {
+				this.fetchToken(creds);
+				creds.endRefresh(refresh);
+				refresh.complete(null);
+			} catch (Throwable e) {
+				log.warn("Failed to refresh Spotify token for client {}", creds.getClientID(), e);
+				creds.endRefresh(refresh);
+				refresh.completeExceptionally(e);
+			}
+		};
+		if (async) {
+			try {
+				this.tokenExecutor.execute(task);
+			} catch (RejectedExecutionException e) {
+				creds.endRefresh(refresh);
+				refresh.completeExceptionally(e);
+			}
+		} else {
+			task.run();
 		}
+		return refresh;
+	}
+
+	private static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for Spotify", e);
+		} catch (ExecutionException e) {
+			var cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
 
+	private void fetchToken(SpotifyCredentials creds) throws IOException {
 		var request = new HttpPost("https://accounts.spotify.com/api/token");
 		request.addHeader("Authorization", "Basic " + Base64.getEncoder().encodeToString((creds.getClientID() + ":" + creds.getClientSecret()).getBytes(StandardCharsets.UTF_8)));
 		request.setEntity(new UrlEncodedFormEntity(List.of(new BasicNameValuePair("grant_type", "client_credentials")), StandardCharsets.UTF_8));
 
 		var json = LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
-		creds.setToken(json.get("access_token").text());
-		creds.setTokenExpire(Instant.now().plusSeconds(json.get("expires_in").asLong(0L)));
+		if (json == null) {
+			throw new IOException("Spotify did not return a token");
+		}
+		var accessToken = new SpotifyToken(json.get("access_token").text(), Instant.now().plusSeconds(json.get("expires_in").asLong(0L)));
+		creds.setAccessToken(accessToken);
+		if (this.tokenStore != null) {
+			// drop expired tokens here too, so clients which stopped being used don't pile up
+			this.storedTokens.values().removeIf(storedToken -> !storedToken.isValidFor(Duration.ZERO));
+			this.storedTokens.put(creds.getClientID(), accessToken);
+		}
 	}
 
-	public String getToken(long guildID) throws IOException {
-		SpotifyCredentials creds = (SpotifyCredentials)this.GUILD_SPOTIFY.get(guildID);
-		if (creds == null) {
-			creds = (SpotifyCredentials)this.GUILD_SPOTIFY.get(-1L);
-		}
+	public JsonBrowser getJson(String uri, long guildID) throws IOException {
+		return this.getJson(uri, this.getCredentials(guildID), guildID);
+	}
 
-		if (creds.getToken() == null || creds.getTokenExpire() == null || creds.getTokenExpire().isBefore(Instant.now())) {
-			this.requestToken(guildID);
-		}
+	/**
+	 * Same as {@link #getJson(String, long)} with already picked credentials, so requests of one load use the same client of a pool.
+	 */
+	private JsonBrowser getJson(String uri, SpotifyCredentials creds, long guildID) throws IOException {
+		// the market is part of the key, as it changes which tracks are available
+		return LavaSrcTools.fetchResponseAsJson(this.responseCache, creds.getCountryCode() + ":" + uri, getCacheTtl(uri), () -> this.fetch(uri, creds, guildID));
+	}
 
-		return creds.getToken();
+	/**
+	 * Sends the request through the rate limiter of the given credentials.
+	 * Requests which get rate limited pause all requests of these credentials for the Retry-After duration and are retried afterwards.
+	 */
+	private String fetch(String uri, SpotifyCredentials creds, long guildID) throws IOException {
+		for (var attempt = 0; ; attempt++) {
+			if (attempt > 0) {
+				// lets a credentials pool pick a client which is not rate limited
+				creds = this.getCredentials(guildID);
+			}
+			var rateLimiter = creds.getRateLimiter();
+			try {
+				rateLimiter.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for Spotify rate limit", e);
+			}
+
+			var request = new HttpGet(uri);
+			request.addHeader("Authorization", "Bearer " + this.getToken(creds));
+			try {
+				var data = LavaSrcTools.fetchRateLimitedResponseAsString(this.httpInterfaceManager.getInterface(), request);
+				rateLimiter.onSuccess();
+				return data;
+			} catch (RateLimitException e) {
+				rateLimiter.throttle(e.getRetryAfter());
+				if (attempt >= MAX_RATE_LIMIT_RETRIES) {
+					throw e;
+				}
+				log.debug("Spotify rate limited request to '{}', retrying after {}", uri, e.getRetryAfter());
+			}
+		}
 	}
 
-	public JsonBrowser getJson(String uri, long guildID) throws IOException {
-		var request = new HttpGet(uri);
-		String token = this.getToken(guildID);
-		request.addHeader("Authorization", "Bearer " + token);
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+	private static Duration getCacheTtl(String uri) {
+		if (uri.startsWith(API_BASE + "recommendations")) {
+			// recommendations are meant to differ on every request
+			return Duration.ZERO;
+		}
+		if (uri.startsWith(API_BASE + "search")) {
+			return ResponseCache.SEARCH_TTL;
+		}
+		if (uri.startsWith(API_BASE + "playlists/")) {
+			return ResponseCache.PLAYLIST_TTL;
+		}
+		return ResponseCache.CATALOG_TTL;
 	}
 
 	private AudioSearchResult getAutocomplete(String query, Set<AudioSearchResult.Type> types, long guildID) throws IOException {
@@ -300,50 +605,72 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			return AudioReference.NO_TRACK;
 		}
 
-		var tracks = new ArrayList<AudioTrack>();
-		JsonBrowser page;
-		var offset = 0;
-		var pages = 0;
-		do {
-			page = this.getJson(API_BASE + "albums/" + id + "/tracks?limit=" + ALBUM_MAX_PAGE_ITEMS + "&offset=" + offset, guildID);
-			offset += ALBUM_MAX_PAGE_ITEMS;
-
-			var tracksPage = this.getJson(API_BASE + "tracks/?ids=" + page.get("items").values().stream().map(track -> track.get("id").text()).collect(Collectors.joining(",")), guildID);
-
-			for (var track : tracksPage.get("tracks").values()) {
-				var albumJson = JsonBrowser.newMap();
-				albumJson.put("name", json.get("name"));
-				track.put("album", albumJson);
-
-				var artistsJson = JsonBrowser.newList();
-				artistsJson.add(json.get("artists").index(0));
+		// like playlists, the album object already embeds the first page of tracks
+		var total = (int) json.get("tracks").get("total").asLong(0);
+		var pageCount = Math.min((total + ALBUM_MAX_PAGE_ITEMS - 1) / ALBUM_MAX_PAGE_ITEMS, this.albumPageLimit);
+		var uris = new ArrayList<String>();
+		for (var page = 1; page < pageCount; page++) {
+			uris.add(API_BASE + "albums/" + id + "/tracks?limit=" + ALBUM_MAX_PAGE_ITEMS + "&offset=" + page * ALBUM_MAX_PAGE_ITEMS);
+		}
+
+		var pages = new ArrayList<JsonBrowser>();
+		pages.add(json.get("tracks"));
+		pages.addAll(LavaSrcTools.fetchAll(this.pageExecutor, uris, uri -> this.getJson(uri, guildID)));
+
+		var items = new ArrayList<JsonBrowser>();
+		for (var page : pages) {
+			if (page == null) {
+				continue;
+			}
+			for (var track : page.get("items").values()) {
+				if (track.isNull() || track.get("is_local").asBoolean(false)) {
+					continue;
+				}
+				items.add(track);
 			}
-			tracks.addAll(this.parseTracks(tracksPage, preview));
 		}
-		while (page.get("next").text() != null && ++pages < this.albumPageLimit);
 
-		if (tracks.isEmpty()) {
+		if (items.isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
 
+		// album tracks are simplified track objects, they lack the album, which is the same for all of them, and the ISRC
+		Map<String, String> isrcs = Map.of();
+		if (this.usesIsrc()) {
+			isrcs = this.getIsrcs(items.stream().map(track -> track.get("id").text()).collect(Collectors.toList()), guildID);
+		}
+		var tracks = new ArrayList<AudioTrack>(items.size());
+		for (var track : items) {
+			tracks.add(this.parseTrack(track, json, isrcs.get(track.get("id").text()), preview));
+		}
+
 		return new SpotifyAudioPlaylist(json.get("name").text(), tracks, ExtendedAudioPlaylist.Type.ALBUM, json.get("external_urls").get("spotify").text(), json.get("images").index(0).get("url").text(), json.get("artists").index(0).get("name").text(), (int) json.get("total_tracks").asLong(0));
 
 	}
 
 	public AudioItem getPlaylist(String id, boolean preview, long guildID) throws IOException {
-		var json = this.getJson(API_BASE + "playlists/" + id, guildID);
+		var json = this.getJson(API_BASE + "playlists/" + id + this.fieldsQuery("?", PLAYLIST_FIELDS), guildID);
 		if (json == null) {
 			return AudioReference.NO_TRACK;
 		}
 
-		var tracks = new ArrayList<AudioTrack>();
-		JsonBrowser page;
-		var offset = 0;
-		var pages = 0;
-		do {
-			page = this.getJson(API_BASE + "playlists/" + id + "/tracks?limit=" + PLAYLIST_MAX_PAGE_ITEMS + "&offset=" + offset, guildID);
-			offset += PLAYLIST_MAX_PAGE_ITEMS;
+		// the playlist object already embeds the first page of tracks, and its total tells us which offsets are left
+		var total = (int) json.get("tracks").get("total").asLong(0);
+		var pageCount = Math.min((total + PLAYLIST_MAX_PAGE_ITEMS - 1) / PLAYLIST_MAX_PAGE_ITEMS, this.playlistPageLimit);
+		var uris = new ArrayList<String>();
+		for (var page = 1; page < pageCount; page++) {
+			uris.add(API_BASE + "playlists/" + id + "/tracks?limit=" + PLAYLIST_MAX_PAGE_ITEMS + "&offset=" + page * PLAYLIST_MAX_PAGE_ITEMS + this.fieldsQuery("&", PLAYLIST_TRACKS_FIELDS));
+		}
 
+		var pages = new ArrayList<JsonBrowser>();
+		pages.add(json.get("tracks"));
+		pages.addAll(LavaSrcTools.fetchAll(this.pageExecutor, uris, uri -> this.getJson(uri, guildID)));
+
+		var tracks = new ArrayList<AudioTrack>();
+		for (var page : pages) {
+			if (page == null) {
+				continue;
+			}
 			for (var value : page.get("items").values()) {
 				var track = value.get("track");
 				if (track.isNull() || track.get("is_local").asBoolean(false)) {
@@ -351,24 +678,57 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 				}
 				tracks.add(this.parseTrack(track, preview));
 			}
-
 		}
-		while (page.get("next").text() != null && ++pages < this.playlistPageLimit);
 
 		if (tracks.isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
 
-		return new SpotifyAudioPlaylist(json.get("name").text(), tracks, ExtendedAudioPlaylist.Type.PLAYLIST, json.get("external_urls").get("spotify").text(), json.get("images").index(0).get("url").text(), json.get("owner").get("display_name").text(), (int) json.get("tracks").get("total").asLong(0));
+		return new SpotifyAudioPlaylist(json.get("name").text(), tracks, ExtendedAudioPlaylist.Type.PLAYLIST, json.get("external_urls").get("spotify").text(), json.get("images").index(0).get("url").text(), json.get("owner").get("display_name").text(), total);
 
 	}
 
-	public AudioItem getArtist(String id, boolean preview, long guildID) throws IOException {
-		SpotifyCredentials creds = GUILD_SPOTIFY.get(guildID);
-		if (creds==null){
-			creds = GUILD_SPOTIFY.get(-1L);
+	/**
+	 * Returns whether the mirroring providers search by ISRC. Custom resolvers might, so they always get the ISRC.
+	 */
+	private boolean usesIsrc() {
+		return !(this.resolver instanceof DefaultMirroringAudioTrackResolver) || ((DefaultMirroringAudioTrackResolver) this.resolver).usesIsrc();
+	}
+
+	/**
+	 * Looks up the ISRCs of the given tracks in batches of {@link #TRACKS_MAX_IDS}.
+	 */
+	private Map<String, String> getIsrcs(List<String> ids, long guildID) throws IOException {
+		var uris = new ArrayList<String>();
+		for (var i = 0; i < ids.size(); i += TRACKS_MAX_IDS) {
+			uris.add(API_BASE + "tracks?ids=" + String.join(",", ids.subList(i, Math.min(i + TRACKS_MAX_IDS, ids.size()))));
+		}
+
+		var isrcs = new HashMap<String, String>(ids.size());
+		for (var page : LavaSrcTools.fetchAll(this.pageExecutor, uris, uri -> this.getJson(uri, guildID))) {
+			if (page == null) {
+				continue;
+			}
+			for (var track : page.get("tracks").values()) {
+				var isrc = track.get("external_ids").get("isrc").text();
+				if (isrc != null) {
+					isrcs.put(track.get("id").text(), isrc);
+				}
+			}
+		}
+		return isrcs;
+	}
+
+	private String fieldsQuery(String separator, String fields) {
+		if (!this.fieldProjection) {
+			return "";
 		}
-		var json = this.getJson(API_BASE + "artists/" + id + "/top-tracks?market=" + creds.getCountryCode(), guildID);
+		return separator + "fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8);
+	}
+
+	public AudioItem getArtist(String id, boolean preview, long guildID) throws IOException {
+		var creds = this.getCredentials(guildID);
+		var json = this.getJson(API_BASE + "artists/" + id + "/top-tracks?market=" + creds.getCountryCode(), creds, guildID);
 		if (json == null || json.get("tracks").values().isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
@@ -376,23 +736,110 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	}
 
 	public SpotifyArtistInfo getArtistInfo(String id, long guildID) throws IOException {
-		String countryCode = "US";
-		if (this.GUILD_SPOTIFY.containsKey(guildID))
-			countryCode = this.GUILD_SPOTIFY.get(guildID).getCountryCode();
-		JsonBrowser json = getJson("https://api.spotify.com/v1/artists/" + id, guildID);
-		if (json == null)
-			return null;
-		return json.as(SpotifyArtistInfo.class);
+		return await(this.getArtistInfoAsync(id, guildID));
+	}
+
+	/**
+	 * Looks up a single artist. Lookups for the same guild arriving within {@link #BATCH_WINDOW} share one request.
+	 */
+	public CompletableFuture<SpotifyArtistInfo> getArtistInfoAsync(String id, long guildID) {
+		return this.artistInfoCoalescer.load(id, guildID);
+	}
+
+	/**
+	 * Looks up the given artists in batches of {@link #ARTISTS_MAX_IDS}. Unknown artists are missing from the result.
+	 */
+	public Map<String, SpotifyArtistInfo> getArtistInfo(Collection<String> ids, long guildID) throws IOException {
+		return this.getBatch(ids, ARTISTS_MAX_IDS, "artists", SpotifyArtistInfo.class, guildID);
+	}
+
+	/**
+	 * Looks up the artwork of the given artists in batches of {@link #ARTISTS_MAX_IDS}. Artists without artwork are missing from the result.
+	 */
+	public Map<String, String> getArtistArtwork(List<String> ids, long guildID) throws IOException {
+		var uris = new ArrayList<String>();
+		for (var i = 0; i < ids.size(); i += ARTISTS_MAX_IDS) {
+			uris.add(API_BASE + "artists?ids=" + String.join(",", ids.subList(i, Math.min(i + ARTISTS_MAX_IDS, ids.size()))));
+		}
+
+		var results = new HashMap<String, String>(ids.size());
+		for (var page : LavaSrcTools.fetchAll(this.pageExecutor, uris, uri -> this.getJson(uri, guildID))) {
+			if (page == null) {
+				continue;
+			}
+			for (var artist : page.get("artists").values()) {
+				if (artist.isNull()) {
+					continue;
+				}
+				var artworkUrl = artist.get("images").index(0).get("url").text();
+				// remember artists without artwork as well, so we don't look them up again
+				this.artistArtworkCache.put(artist.get("id").text(), artworkUrl == null ? "" : artworkUrl, ARTIST_ARTWORK_TTL);
+				if (artworkUrl != null) {
+					results.put(artist.get("id").text(), artworkUrl);
+				}
+			}
+		}
+		return results;
+	}
+
+	private void deferArtistArtwork(SpotifyAudioTrack track) {
+		if (!this.resolveArtistArtwork || track.getArtistArtworkUrl() != null || track.getArtistUrl() == null) {
+			return;
+		}
+		var artistUrl = track.getArtistUrl();
+		var artistId = artistUrl.substring(artistUrl.lastIndexOf('/') + 1);
+		if (artistId.isEmpty()) {
+			return;
+		}
+		var cached = this.artistArtworkCache.get(artistId);
+		if (cached != null) {
+			track.deferArtistArtworkUrl(CompletableFuture.completedFuture(cached.isEmpty() ? null : cached));
+			return;
+		}
+		// artists look the same in every market, so the lookups of all guilds share one batch
+		track.deferArtistArtworkUrl(this.artistArtworkCoalescer.load(artistId, DEFAULT_GUILD_ID));
 	}
 
 	public SpotifyTrackFeatures getTrackFeatures(String id, long guildID) throws IOException {
-		String countryCode = "US";
-		if (this.GUILD_SPOTIFY.containsKey(guildID)) {
-			countryCode = this.GUILD_SPOTIFY.get(guildID).getCountryCode();
+		return await(this.getTrackFeaturesAsync(id, guildID));
+	}
+
+	/**
+	 * Looks up the audio features of a single track. Lookups for the same guild arriving within {@link #BATCH_WINDOW} share one request.
+	 */
+	public CompletableFuture<SpotifyTrackFeatures> getTrackFeaturesAsync(String id, long guildID) {
+		return this.trackFeaturesCoalescer.load(id, guildID);
+	}
+
+	/**
+	 * Looks up the audio features of the given tracks in batches of {@link #AUDIO_FEATURES_MAX_IDS}. Unknown tracks are missing from the result.
+	 */
+	public Map<String, SpotifyTrackFeatures> getTrackFeatures(Collection<String> ids, long guildID) throws IOException {
+		return this.getBatch(ids, AUDIO_FEATURES_MAX_IDS, "audio-features", SpotifyTrackFeatures.class, guildID);
+	}
+
+	private <T> Map<String, T> getBatch(Collection<String> ids, int maxIds, String endpoint, Class<T> type, long guildID) throws IOException {
+		var distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+		var uris = new ArrayList<String>();
+		for (var i = 0; i < distinctIds.size(); i += maxIds) {
+			uris.add(API_BASE + endpoint + "?ids=" + String.join(",", distinctIds.subList(i, Math.min(i + maxIds, distinctIds.size()))));
 		}
 
-		JsonBrowser json = this.getJson("https://api.spotify.com/v1/audio-features/" + id, guildID);
-		return json == null ? null : json.as(SpotifyTrackFeatures.class);
+		var results = new HashMap<String, T>(distinctIds.size());
+		// audio-features returns its results under "audio_features"
+		var key = endpoint.replace('-', '_');
+		for (var page : LavaSrcTools.fetchAll(this.pageExecutor, uris, uri -> this.getJson(uri, guildID))) {
+			if (page == null) {
+				continue;
+			}
+			for (var value : page.get(key).values()) {
+				if (value.isNull()) {
+					continue;
+				}
+				results.put(value.get("id").text(), value.as(type));
+			}
+		}
+		return results;
 	}
 
 	public AudioItem getTrack(String id, boolean preview, long guildID) throws IOException {
@@ -423,7 +870,11 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	}
 
 	private AudioTrack parseTrack(JsonBrowser json, boolean preview) {
-		return new SpotifyAudioTrack(
+		return this.parseTrack(json, json.get("album"), json.get("external_ids").get("isrc").text(), preview);
+	}
+
+	private AudioTrack parseTrack(JsonBrowser json, JsonBrowser album, @Nullable String isrc, boolean preview) {
+		var track = new SpotifyAudioTrack(
 			new AudioTrackInfo(
 				json.get("name").text(),
 				json.get("artists").index(0).get("name").text(),
@@ -431,21 +882,30 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 				json.get("id").text(),
 				false,
 				json.get("external_urls").get("spotify").text(),
-				json.get("album").get("images").index(0).get("url").text(),
-				json.get("external_ids").get("isrc").text()
+				album.get("images").index(0).get("url").text(),
+				isrc
 			),
-			json.get("album").get("name").text(),
-			json.get("album").get("external_urls").get("spotify").text(),
+			album.get("name").text(),
+			album.get("external_urls").get("spotify").text(),
 			json.get("artists").index(0).get("external_urls").get("spotify").text(),
 			json.get("artists").index(0).get("images").index(0).get("url").text(),
 			json.get("preview_url").text(),
 			preview,
 			this
 		);
+		this.deferArtistArtwork(track);
+		return track;
 	}
 
 	@Override
 	public void shutdown() {
+		this.saveTokens();
+		ExecutorTools.shutdownExecutor(this.tokenExecutor, "spotify token refresher");
+		ExecutorTools.shutdownExecutor(this.scheduler, "spotify scheduler");
+		ExecutorTools.shutdownExecutor(this.batchExecutor, "spotify batch loader");
+		if (this.pageExecutor != null) {
+			ExecutorTools.shutdownExecutor(this.pageExecutor, "spotify page loader");
+		}
 		try {
 			this.httpInterfaceManager.close();
 		} catch (IOException e) {
@@ -0,0 +1,32 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+
+public class SpotifyToken implements Serializable {
+
+	private final String token;
+	private final Instant expire;
+
+	public SpotifyToken(String token, Instant expire) {
+		this.token = token;
+		this.expire = expire;
+	}
+
+	public String getToken() {
+		return this.token;
+	}
+
+	public Instant getExpire() {
+		return this.expire;
+	}
+
+	/**
+	 * @return whether the token is still valid for at least the given duration
+	 */
+	public boolean isValidFor(Duration duration) {
+		return this.expire.isAfter(Instant.now().plus(duration));
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Persists Spotify access tokens by client id, so they survive restarts and don't have to be requested again.
+ */
+public interface SpotifyTokenStore {
+
+	Map<String, SpotifyToken> load() throws IOException;
+
+	void save(Map<String, SpotifyToken> tokens) throws IOException;
+
+}
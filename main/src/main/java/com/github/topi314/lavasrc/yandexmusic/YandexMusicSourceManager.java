@@ -2,8 +2,12 @@ package com.github.topi314.lavasrc.yandexmusic;
 
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.cache.LruResponseCache;
+import com.github.topi314.lavasrc.cache.ResponseCache;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
@@ -16,13 +20,26 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -32,12 +49,26 @@ public class YandexMusicSourceManager implements AudioSourceManager, HttpConfigu
 	public static final Pattern URL_PLAYLIST_PATTERN = Pattern.compile("(https?://)?music\\.yandex\\.(ru|com)/users/(?<identifier>[0-9A-Za-z@.-]+)/playlists/(?<identifier2>[0-9]+)/?");
 	public static final String SEARCH_PREFIX = "ymsearch:";
 	public static final String PUBLIC_API_BASE = "https://api.music.yandex.net";
+	public static final long DOWNLOAD_URL_CACHE_SIZE = 256 * 1024;
+	// yandex doesn't say how long the signed links stay valid, so they are only reused for a short time
+	public static final Duration DOWNLOAD_URL_TTL = Duration.ofMinutes(1);
+	// playlist tracks are loaded by id in chunks of this size
+	public static final int PLAYLIST_MAX_PAGE_ITEMS = 100;
+	public static final int DEFAULT_PAGE_LOAD_CONCURRENCY = 4;
 
 	private static final Logger log = LoggerFactory.getLogger(YandexMusicSourceManager.class);
+	private static final String DOWNLOAD_SIGN_SALT = "XGRlBW9FXlekgbPrRHuSiA";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
 
 	private final HttpInterfaceManager httpInterfaceManager;
 
 	private final String accessToken;
+	private ResponseCache responseCache;
+	private final LruResponseCache downloadUrlCache = new LruResponseCache(DOWNLOAD_URL_CACHE_SIZE);
+	private final Map<String, CompletableFuture<String>> pendingDownloadUrls = new ConcurrentHashMap<>();
+	private int playlistPageLimit = 50;
+	private ExecutorService pageExecutor = createPageExecutor(DEFAULT_PAGE_LOAD_CONCURRENCY);
 
 	public YandexMusicSourceManager(String accessToken) {
 		if (accessToken == null || accessToken.isEmpty()) {
@@ -47,6 +78,32 @@ public class YandexMusicSourceManager implements AudioSourceManager, HttpConfigu
 		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
 	}
 
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	public void setPlaylistPageLimit(int playlistPageLimit) {
+		this.playlistPageLimit = playlistPageLimit;
+	}
+
+	/**
+	 * Sets how many chunks of playlist tracks are fetched at the same time. A value of 1 or less fetches them one after another.
+	 */
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		var oldExecutor = this.pageExecutor;
+		this.pageExecutor = createPageExecutor(pageLoadConcurrency);
+		if (oldExecutor != null) {
+			oldExecutor.shutdown();
+		}
+	}
+
+	private static ExecutorService createPageExecutor(int concurrency) {
+		if (concurrency <= 1) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("yandexmusic-page-loader"));
+	}
+
 	@Override
 	public String getSourceName() {
 		return "yandexmusic";
@@ -144,14 +201,12 @@ public class YandexMusicSourceManager implements AudioSourceManager, HttpConfigu
 	}
 
 	private AudioItem getPlaylist(String userString, String id) throws IOException {
-		var json = this.getJson(PUBLIC_API_BASE + "/users/" + userString + "/playlists/" + id);
+		// only the track ids are loaded with the playlist, the tracks themselves are fetched in chunks below
+		var json = this.getJson(PUBLIC_API_BASE + "/users/" + userString + "/playlists/" + id + "?rich-tracks=false");
 		if (json.isNull() || json.get("result").isNull() || json.get("result").get("tracks").values().isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
-		var tracks = new ArrayList<AudioTrack>();
-		for (var track : json.get("result").get("tracks").values()) {
-			tracks.add(this.parseTrack(track.get("track")));
-		}
+		var tracks = this.getPlaylistTracks(json.get("result").get("tracks"));
 		if (tracks.isEmpty()) {
 			return AudioReference.NO_TRACK;
 		}
@@ -161,11 +216,178 @@ public class YandexMusicSourceManager implements AudioSourceManager, HttpConfigu
 		return new YandexMusicAudioPlaylist(playlistTitle, tracks, ExtendedAudioPlaylist.Type.PLAYLIST, json.get("result").get("url").text(), this.formatCoverUri(coverUri), author);
 	}
 
+	/**
+	 * Loads the tracks of the given playlist entries via {@code /tracks?track-ids=} in chunks of {@link #PLAYLIST_MAX_PAGE_ITEMS},
+	 * up to the page limit. The chunks are fetched at once and keep the playlist order.
+	 */
+	private List<AudioTrack> getPlaylistTracks(JsonBrowser entries) throws IOException {
+		var maxTracks = Math.max(1, this.playlistPageLimit) * PLAYLIST_MAX_PAGE_ITEMS;
+		var ids = new ArrayList<String>();
+		for (var entry : entries.values()) {
+			if (ids.size() >= maxTracks) {
+				break;
+			}
+			var trackId = entry.get("id").isNull() ? entry.get("track").get("id").text() : entry.get("id").text();
+			if (trackId == null) {
+				continue;
+			}
+			var albumId = entry.get("albumId").isNull() ? entry.get("track").get("albums").index(0).get("id").text() : entry.get("albumId").text();
+			ids.add(albumId == null ? trackId : trackId + ":" + albumId);
+		}
+
+		var uris = new ArrayList<String>();
+		for (var i = 0; i < ids.size(); i += PLAYLIST_MAX_PAGE_ITEMS) {
+			uris.add(PUBLIC_API_BASE + "/tracks?track-ids=" + String.join(",", ids.subList(i, Math.min(i + PLAYLIST_MAX_PAGE_ITEMS, ids.size()))));
+		}
+
+		var tracks = new ArrayList<AudioTrack>();
+		for (var page : LavaSrcTools.fetchAll(this.pageExecutor, uris, this::getJson)) {
+			if (page != null && !page.isNull()) {
+				tracks.addAll(this.parseTracks(page.get("result")));
+			}
+		}
+		return tracks;
+	}
+
 	public JsonBrowser getJson(String uri) throws IOException {
 		var request = new HttpGet(uri);
 		request.setHeader("Accept", "application/json");
 		request.setHeader("Authorization", "OAuth " + this.accessToken);
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request, this.responseCache, uri, getCacheTtl(uri));
+	}
+
+	private static Duration getCacheTtl(String uri) {
+		if (uri.endsWith("/download-info")) {
+			// download links are signed and only valid for a short time
+			return Duration.ZERO;
+		}
+		if (uri.startsWith(PUBLIC_API_BASE + "/search")) {
+			return ResponseCache.SEARCH_TTL;
+		}
+		if (uri.startsWith(PUBLIC_API_BASE + "/users/")) {
+			return ResponseCache.PLAYLIST_TTL;
+		}
+		return ResponseCache.CATALOG_TTL;
+	}
+
+	/**
+	 * Returns the signed download link of the given track. Links are cached for {@link #DOWNLOAD_URL_TTL},
+	 * and concurrent calls for the same track share one resolution.
+	 */
+	public String getDownloadURL(String trackId) throws IOException {
+		var cached = this.downloadUrlCache.get(trackId);
+		if (cached != null) {
+			return cached;
+		}
+
+		var future = new CompletableFuture<String>();
+		var pending = this.pendingDownloadUrls.putIfAbsent(trackId, future);
+		if (pending != null) {
+			try {
+				return pending.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for download URL", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			}
+		}
+
+		try {
+			var url = this.resolveDownloadURL(trackId);
+			this.downloadUrlCache.put(trackId, url, DOWNLOAD_URL_TTL);
+			future.complete(url);
+			return url;
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.pendingDownloadUrls.remove(trackId, future);
+		}
+	}
+
+	public void invalidateDownloadURL(String trackId) {
+		this.downloadUrlCache.invalidate(trackId);
+	}
+
+	private String resolveDownloadURL(String id) throws IOException {
+		var json = this.getJson(PUBLIC_API_BASE + "/tracks/" + id + "/download-info");
+		if (json.isNull() || json.get("result").values().isEmpty()) {
+			throw new IllegalStateException("No download URL found for track " + id);
+		}
+
+		var downloadInfoLink = json.get("result").values().get(0).get("downloadInfoUrl").text();
+		var downloadInfo = this.getDownloadStrings(downloadInfoLink);
+		if (downloadInfo == null) {
+			throw new IllegalStateException("No download URL found for track " + id);
+		}
+
+		String host = null;
+		String path = null;
+		String ts = null;
+		String s = null;
+		try {
+			var reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(downloadInfo));
+			try {
+				while (reader.hasNext() && (host == null || path == null || ts == null || s == null)) {
+					if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+						continue;
+					}
+					switch (reader.getLocalName()) {
+						case "host":
+							host = reader.getElementText();
+							break;
+						case "path":
+							path = reader.getElementText();
+							break;
+						case "ts":
+							ts = reader.getElementText();
+							break;
+						case "s":
+							s = reader.getElementText();
+							break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Failed to parse download info of track " + id, e);
+		}
+		if (host == null || path == null || ts == null || s == null) {
+			throw new IllegalStateException("No download URL found for track " + id);
+		}
+
+		return "https://" + host + "/get-mp3/" + md5Hex(DOWNLOAD_SIGN_SALT + path + s) + "/" + ts + path;
+	}
+
+	private static String md5Hex(String value) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 is not supported", e);
+		}
+		var hex = new char[digest.length * 2];
+		for (var i = 0; i < digest.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	private static XMLInputFactory createXMLInputFactory() {
+		var factory = XMLInputFactory.newFactory();
+		// the download info is plain xml, never resolve dtds or external entities
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
 	}
 
 	public String getDownloadStrings(String uri) throws IOException {
@@ -238,6 +460,9 @@ public class YandexMusicSourceManager implements AudioSourceManager, HttpConfigu
 
 	@Override
 	public void shutdown() {
+		if (this.pageExecutor != null) {
+			ExecutorTools.shutdownExecutor(this.pageExecutor, "yandex music page loader");
+		}
 		try {
 			this.httpInterfaceManager.close();
 		} catch (IOException e) {
@@ -0,0 +1,51 @@
+package com.github.topi314.lavasrc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruResponseCacheTest {
+
+	@Test
+	void countsHitsAndMisses() {
+		ResponseCache cache = new LruResponseCache(1024);
+		assertNull(cache.get("a"));
+		cache.put("a", "value", Duration.ofMinutes(1));
+		assertEquals("value", cache.get("a"));
+		assertEquals("value", cache.get("a"));
+		assertNull(cache.get("b"));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	void countsExpiredEntriesAsMisses() throws InterruptedException {
+		var cache = new LruResponseCache(1024);
+		cache.put("a", "value", Duration.ofMillis(1));
+		Thread.sleep(5);
+		assertNull(cache.get("a"));
+
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		// every entry weighs 2 bytes per char of its key and value
+		var cache = new LruResponseCache(2 * 3 * 2);
+		cache.put("a", "1", Duration.ofMinutes(1));
+		cache.put("b", "2", Duration.ofMinutes(1));
+		cache.put("c", "3", Duration.ofMinutes(1));
+		assertEquals("1", cache.get("a"));
+		cache.put("d", "4", Duration.ofMinutes(1));
+
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals(3, cache.getSize());
+	}
+
+}
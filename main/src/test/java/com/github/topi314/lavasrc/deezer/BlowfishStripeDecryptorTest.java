@@ -0,0 +1,55 @@
+package com.github.topi314.lavasrc.deezer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlowfishStripeDecryptorTest {
+
+	@Test
+	void matchesJce() throws IOException {
+		var random = new Random(42);
+		for (var i = 0; i < 100; i++) {
+			// deezer keys are always 16 bytes, other lengths cover the key schedule wrapping around
+			var key = new byte[i % 4 == 0 ? 4 + random.nextInt(53) : 16];
+			random.nextBytes(key);
+			var stripe = new byte[DeezerPersistentHttpStream.STRIPE_SIZE];
+			random.nextBytes(stripe);
+
+			var expected = stripe.clone();
+			DeezerDecryptionEngine.JCE.create(key).decrypt(expected, 0, expected.length);
+			var actual = stripe.clone();
+			new BlowfishStripeDecryptor(key).decrypt(actual, 0, actual.length);
+
+			assertArrayEquals(expected, actual, "key " + Arrays.toString(key));
+		}
+	}
+
+	@Test
+	void decryptsAtOffset() throws IOException {
+		var random = new Random(7);
+		var key = new byte[16];
+		random.nextBytes(key);
+		var buffer = new byte[DeezerPersistentHttpStream.STRIPE_SIZE + 24];
+		random.nextBytes(buffer);
+
+		var expected = buffer.clone();
+		DeezerDecryptionEngine.JCE.create(key).decrypt(expected, 8, DeezerPersistentHttpStream.STRIPE_SIZE);
+		var actual = buffer.clone();
+		new BlowfishStripeDecryptor(key).decrypt(actual, 8, DeezerPersistentHttpStream.STRIPE_SIZE);
+
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	void rejectsPartialBlocks() {
+		var decryptor = new BlowfishStripeDecryptor(new byte[16]);
+		assertThrows(IllegalArgumentException.class, () -> decryptor.decrypt(new byte[12], 0, 12));
+	}
+
+}
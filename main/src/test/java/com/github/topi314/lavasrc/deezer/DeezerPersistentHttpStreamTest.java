@@ -0,0 +1,189 @@
+package com.github.topi314.lavasrc.deezer;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeezerPersistentHttpStreamTest {
+
+	// the audio is served unencrypted, so what the stream returns has to match it byte for byte
+	private static final DeezerStripeDecryptor PLAIN = (buffer, offset, length) -> {
+	};
+
+	private static final int STRIPE_SIZE = DeezerPersistentHttpStream.STRIPE_SIZE;
+
+	private final byte[] content = new byte[STRIPE_SIZE * 100 + 123];
+	// the start of the requested range of every request the server got
+	private final List<Integer> requests = new CopyOnWriteArrayList<>();
+	// when set, responses are sent without a length and the connection is closed halfway through the audio
+	private volatile boolean truncate;
+	private HttpServer server;
+	private HttpInterfaceManager httpInterfaceManager;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		new Random(42).nextBytes(this.content);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.createContext("/", exchange -> {
+			var range = exchange.getRequestHeaders().getFirst("Range");
+			var start = range == null ? 0 : Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+			this.requests.add(start);
+			if (this.truncate) {
+				exchange.sendResponseHeaders(200, 0);
+				try (var body = exchange.getResponseBody()) {
+					body.write(this.content, start, this.content.length / 2 - start);
+				}
+				return;
+			}
+			if (range != null) {
+				exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + (this.content.length - 1) + "/" + this.content.length);
+			}
+			exchange.sendResponseHeaders(range == null ? 200 : 206, this.content.length - start);
+			try (var body = exchange.getResponseBody()) {
+				body.write(this.content, start, this.content.length - start);
+			}
+		});
+		this.server.start();
+		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		this.httpInterfaceManager.close();
+		this.server.stop(0);
+	}
+
+	private DeezerPersistentHttpStream createStream() {
+		var uri = URI.create("http://127.0.0.1:" + this.server.getAddress().getPort() + "/track");
+		return new DeezerPersistentHttpStream(this.httpInterfaceManager.getInterface(), uri, (long) this.content.length, PLAIN);
+	}
+
+	@Test
+	void commitsCacheFileWhenReadToEnd(@TempDir Path directory) throws IOException {
+		var cache = new DeezerAudioCache(directory, this.content.length * 2L);
+		try (var stream = this.createStream()) {
+			stream.setCacheWriter(cache.createWriter("1", "MP3_128"));
+			var buffer = new byte[1000];
+			while (true) {
+				// frame parsers skip over tags and padding, those bytes have to end up in the cache as well
+				assertTrue(stream.skip(100) >= 0);
+				if (stream.read(buffer) == -1) {
+					break;
+				}
+			}
+		}
+
+		assertEquals(1, cache.getSize());
+		try (var cached = cache.open("1", "MP3_128")) {
+			assertNotNull(cached);
+			assertArrayEquals(this.content, cached.readAllBytes());
+		}
+	}
+
+	@Test
+	void doesNotCacheTruncatedStream(@TempDir Path directory) throws IOException {
+		this.truncate = true;
+		var cache = new DeezerAudioCache(directory, this.content.length * 2L);
+		try (var stream = this.createStream()) {
+			stream.setCacheWriter(cache.createWriter("1", "MP3_128"));
+			stream.readAllBytes();
+		}
+
+		assertEquals(0, cache.getSize());
+		assertNull(cache.open("1", "MP3_128"));
+	}
+
+	@Test
+	void skipReturnsSkippedBytes() throws IOException {
+		try (var stream = this.createStream()) {
+			assertEquals(5000, stream.skip(5000));
+			assertEquals(5000, stream.getPosition());
+			assertEquals(this.content[5000] & 0xFF, stream.read());
+			assertEquals(this.content.length - 5001, stream.skip(Long.MAX_VALUE));
+			assertEquals(-1, stream.read());
+		}
+	}
+
+	@Test
+	void seeksBackInsideWindowWithoutRequest() throws IOException {
+		try (var stream = this.createStream()) {
+			this.assertReads(stream, 0, 10_000);
+			stream.seek(3000);
+			assertEquals(3000, stream.getPosition());
+			this.assertReads(stream, 3000, 2000);
+		}
+		assertEquals(List.of(0), this.requests);
+	}
+
+	@Test
+	void readsAcrossWindowEdge() throws IOException {
+		try (var stream = this.createStream()) {
+			this.assertReads(stream, 0, STRIPE_SIZE * 20);
+			stream.seek(STRIPE_SIZE * 5 + 100);
+			// served from the window until its last stripe, then the stream has to connect again
+			this.assertReads(stream, STRIPE_SIZE * 5 + 100, this.content.length - STRIPE_SIZE * 5 - 100);
+			assertEquals(-1, stream.read());
+		}
+		assertEquals(2, this.requests.size());
+		this.assertAlignedRequests();
+	}
+
+	@Test
+	void reconnectsAtStripeStart() throws IOException {
+		try (var stream = this.createStream()) {
+			this.assertReads(stream, 0, this.content.length);
+			// long evicted from the window
+			stream.seek(STRIPE_SIZE * 3 + 1000);
+			assertEquals(STRIPE_SIZE * 3 + 1000, stream.getPosition());
+			this.assertReads(stream, STRIPE_SIZE * 3 + 1000, 5000);
+		}
+		assertEquals(List.of(0, STRIPE_SIZE * 3), this.requests);
+	}
+
+	@Test
+	void reconnectsAfterClose() throws IOException {
+		try (var stream = this.createStream()) {
+			this.assertReads(stream, 0, STRIPE_SIZE * 50 + 10);
+			// what a network error does before reading again
+			stream.close();
+			assertEquals(STRIPE_SIZE * 50 + 10, stream.getPosition());
+			this.assertReads(stream, STRIPE_SIZE * 50 + 10, this.content.length - STRIPE_SIZE * 50 - 10);
+		}
+		assertEquals(2, this.requests.size());
+		this.assertAlignedRequests();
+	}
+
+	private void assertReads(DeezerPersistentHttpStream stream, int position, int length) throws IOException {
+		var actual = new byte[length];
+		var read = 0;
+		while (read < length) {
+			var count = stream.read(actual, read, Math.min(777, length - read));
+			assertNotEquals(-1, count, "unexpected end of stream");
+			read += count;
+		}
+		assertArrayEquals(Arrays.copyOfRange(this.content, position, position + length), actual);
+		assertEquals(position + length, stream.getPosition());
+	}
+
+	private void assertAlignedRequests() {
+		for (var start : this.requests) {
+			assertEquals(0, start % STRIPE_SIZE, "request range starts inside a stripe: " + this.requests);
+		}
+	}
+
+}
@@ -15,6 +15,8 @@ public class AppleMusicConfig {
 	private String mediaAPIToken;
 	private int playlistLoadLimit;
 	private int albumLoadLimit;
+	private int pageLoadConcurrency;
+	private boolean deferArtistArtwork;
 
 	public String getCountryCode() {
 		return this.countryCode;
@@ -48,6 +50,22 @@ public class AppleMusicConfig {
 		this.albumLoadLimit = albumLoadLimit;
 	}
 
+	public int getPageLoadConcurrency() {
+		return this.pageLoadConcurrency;
+	}
+
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		this.pageLoadConcurrency = pageLoadConcurrency;
+	}
+
+	public boolean isDeferArtistArtwork() {
+		return this.deferArtistArtwork;
+	}
+
+	public void setDeferArtistArtwork(boolean deferArtistArtwork) {
+		this.deferArtistArtwork = deferArtistArtwork;
+	}
+
 	public String getMusicKitKey() {
 		return musicKitKey;
 	}
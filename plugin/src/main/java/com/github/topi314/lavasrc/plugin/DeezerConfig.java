@@ -1,5 +1,6 @@
 package com.github.topi314.lavasrc.plugin;
 
+import com.github.topi314.lavasrc.deezer.DeezerDecryptionEngine;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -8,6 +9,13 @@ import org.springframework.stereotype.Component;
 public class DeezerConfig {
 
 	private String masterDecryptionKey;
+	private DeezerDecryptionEngine decryptionEngine = DeezerDecryptionEngine.JCE;
+	private String audioCachePath;
+	private long audioCacheSize;
+	private String isrcIndexPath;
+	private int playlistLoadLimit;
+	private int artistLoadLimit;
+	private int pageLoadConcurrency;
 
 	public String getMasterDecryptionKey() {
 		return this.masterDecryptionKey;
@@ -17,4 +25,60 @@ public class DeezerConfig {
 		this.masterDecryptionKey = masterDecryptionKey;
 	}
 
+	public DeezerDecryptionEngine getDecryptionEngine() {
+		return this.decryptionEngine;
+	}
+
+	public void setDecryptionEngine(DeezerDecryptionEngine decryptionEngine) {
+		this.decryptionEngine = decryptionEngine;
+	}
+
+	public String getAudioCachePath() {
+		return this.audioCachePath;
+	}
+
+	public void setAudioCachePath(String audioCachePath) {
+		this.audioCachePath = audioCachePath;
+	}
+
+	public long getAudioCacheSize() {
+		return this.audioCacheSize;
+	}
+
+	public void setAudioCacheSize(long audioCacheSize) {
+		this.audioCacheSize = audioCacheSize;
+	}
+
+	public String getIsrcIndexPath() {
+		return this.isrcIndexPath;
+	}
+
+	public void setIsrcIndexPath(String isrcIndexPath) {
+		this.isrcIndexPath = isrcIndexPath;
+	}
+
+	public int getPlaylistLoadLimit() {
+		return this.playlistLoadLimit;
+	}
+
+	public void setPlaylistLoadLimit(int playlistLoadLimit) {
+		this.playlistLoadLimit = playlistLoadLimit;
+	}
+
+	public int getArtistLoadLimit() {
+		return this.artistLoadLimit;
+	}
+
+	public void setArtistLoadLimit(int artistLoadLimit) {
+		this.artistLoadLimit = artistLoadLimit;
+	}
+
+	public int getPageLoadConcurrency() {
+		return this.pageLoadConcurrency;
+	}
+
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		this.pageLoadConcurrency = pageLoadConcurrency;
+	}
+
 }
@@ -14,6 +14,7 @@ public class LavaSrcConfig {
 		"ytsearch:\"" + ISRC_PATTERN + "\"",
 		"ytsearch:" + QUERY_PATTERN
 	};
+	private long responseCacheSize;
 
 	public String[] getProviders() {
 		return this.providers;
@@ -23,4 +24,12 @@ public class LavaSrcConfig {
 		this.providers = providers;
 	}
 
+	public long getResponseCacheSize() {
+		return this.responseCacheSize;
+	}
+
+	public void setResponseCacheSize(long responseCacheSize) {
+		this.responseCacheSize = responseCacheSize;
+	}
+
 }
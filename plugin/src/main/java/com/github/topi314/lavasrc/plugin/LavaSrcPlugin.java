@@ -3,8 +3,14 @@ package com.github.topi314.lavasrc.plugin;
 import com.github.topi314.lavasearch.AudioSearchManager;
 import com.github.topi314.lavasearch.api.SearchManagerConfiguration;
 import com.github.topi314.lavasrc.applemusic.AppleMusicSourceManager;
+import com.github.topi314.lavasrc.cache.LruResponseCache;
+import com.github.topi314.lavasrc.deezer.DeezerAudioCache;
 import com.github.topi314.lavasrc.deezer.DeezerAudioSourceManager;
+import com.github.topi314.lavasrc.deezer.DeezerIsrcIndex;
 import com.github.topi314.lavasrc.flowerytts.FloweryTTSSourceManager;
+import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
+import com.github.topi314.lavasrc.spotify.FileSpotifyTokenStore;
+import com.github.topi314.lavasrc.spotify.SpotifyCredentials;
 import com.github.topi314.lavasrc.spotify.SpotifySourceManager;
 import com.github.topi314.lavasrc.yandexmusic.YandexMusicSourceManager;
 import com.github.topi314.lavasrc.youtube.YoutubeSearchManager;
@@ -15,6 +21,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+
 @Service
 public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchManagerConfiguration {
 
@@ -31,34 +43,110 @@ public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchMan
 	public LavaSrcPlugin(LavaSrcConfig pluginConfig, SourcesConfig sourcesConfig, SpotifyConfig spotifyConfig, AppleMusicConfig appleMusicConfig, DeezerConfig deezerConfig, YandexMusicConfig yandexMusicConfig, FloweryTTSConfig floweryTTSConfig) {
 		log.info("Loading LavaSrc plugin...");
 
+		LruResponseCache responseCache = null;
+		if (pluginConfig.getResponseCacheSize() > 0) {
+			responseCache = new LruResponseCache(pluginConfig.getResponseCacheSize());
+		}
+
 		if (sourcesConfig.isSpotify()) {
 			log.info("Registering Spotify audio source manager...");
 			this.spotify = new SpotifySourceManager(pluginConfig.getProviders(), manager);
+			if (spotifyConfig.getClientId() != null && !spotifyConfig.getClientId().isEmpty()) {
+				this.spotify.registerSpotifyCredentials(spotifyConfig.getClientId(), spotifyConfig.getClientSecret(), spotifyConfig.getCountryCode(), SpotifySourceManager.DEFAULT_GUILD_ID);
+			}
+			if (!spotifyConfig.getClients().isEmpty()) {
+				var pool = new ArrayList<SpotifyCredentials>();
+				if (spotifyConfig.getClientId() != null && !spotifyConfig.getClientId().isEmpty()) {
+					pool.add(new SpotifyCredentials(spotifyConfig.getClientId(), spotifyConfig.getClientSecret(), spotifyConfig.getCountryCode()));
+				}
+				for (var client : spotifyConfig.getClients()) {
+					pool.add(new SpotifyCredentials(client.getClientId(), client.getClientSecret(), spotifyConfig.getCountryCode()));
+				}
+				this.spotify.registerSpotifyCredentialsPool(pool);
+			}
 			if (spotifyConfig.getPlaylistLoadLimit() > 0) {
 				this.spotify.setPlaylistPageLimit(spotifyConfig.getPlaylistLoadLimit());
 			}
 			if (spotifyConfig.getAlbumLoadLimit() > 0) {
 				this.spotify.setAlbumPageLimit(spotifyConfig.getAlbumLoadLimit());
 			}
+			if (spotifyConfig.getPageLoadConcurrency() > 0) {
+				this.spotify.setPageLoadConcurrency(spotifyConfig.getPageLoadConcurrency());
+			}
+			this.spotify.setResponseCache(responseCache);
+			if (spotifyConfig.isResolveArtistArtwork()) {
+				this.spotify.setResolveArtistArtwork(true);
+			}
+			if (spotifyConfig.getTokenStorePath() != null && !spotifyConfig.getTokenStorePath().isEmpty()) {
+				this.spotify.setTokenStore(new FileSpotifyTokenStore(Path.of(spotifyConfig.getTokenStorePath())));
+			}
 		}
 		if (sourcesConfig.isAppleMusic()) {
 			log.info("Registering Apple Music audio source manager...");
-			var appleMusicSourceManager = new AppleMusicSourceManager(pluginConfig.getProviders(), appleMusicConfig.getMediaAPIToken(), appleMusicConfig.getCountryCode(), unused -> manager);
+			AppleMusicSourceManager appleMusicSourceManager;
+			if ((appleMusicConfig.getMediaAPIToken() == null || appleMusicConfig.getMediaAPIToken().isEmpty()) && appleMusicConfig.getMusicKitKey() != null && !appleMusicConfig.getMusicKitKey().isEmpty()) {
+				try {
+					appleMusicSourceManager = AppleMusicSourceManager.fromMusicKitKey(appleMusicConfig.getMusicKitKey(), appleMusicConfig.getKeyID(), appleMusicConfig.getTeamID(), appleMusicConfig.getCountryCode(), unused -> manager, new DefaultMirroringAudioTrackResolver(pluginConfig.getProviders()));
+				} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+					throw new RuntimeException("Failed to load Apple Music MusicKit key", e);
+				}
+			} else {
+				appleMusicSourceManager = new AppleMusicSourceManager(pluginConfig.getProviders(), appleMusicConfig.getMediaAPIToken(), appleMusicConfig.getCountryCode(), unused -> manager);
+			}
 			if (appleMusicConfig.getPlaylistLoadLimit() > 0) {
 				appleMusicSourceManager.setPlaylistPageLimit(appleMusicConfig.getPlaylistLoadLimit());
 			}
 			if (appleMusicConfig.getAlbumLoadLimit() > 0) {
 				appleMusicSourceManager.setAlbumPageLimit(appleMusicConfig.getAlbumLoadLimit());
 			}
+			if (appleMusicConfig.getPageLoadConcurrency() > 0) {
+				appleMusicSourceManager.setPageLoadConcurrency(appleMusicConfig.getPageLoadConcurrency());
+			}
+			if (appleMusicConfig.isDeferArtistArtwork()) {
+				appleMusicSourceManager.setDeferArtistArtwork(true);
+			}
+			appleMusicSourceManager.setResponseCache(responseCache);
 			this.appleMusic = appleMusicSourceManager;
 		}
 		if (sourcesConfig.isDeezer()) {
 			log.info("Registering Deezer audio source manager...");
 			this.deezer = new DeezerAudioSourceManager(deezerConfig.getMasterDecryptionKey());
+			this.deezer.setResponseCache(responseCache);
+			this.deezer.setDecryptionEngine(deezerConfig.getDecryptionEngine());
+			if (deezerConfig.getPlaylistLoadLimit() > 0) {
+				this.deezer.setPlaylistPageLimit(deezerConfig.getPlaylistLoadLimit());
+			}
+			if (deezerConfig.getArtistLoadLimit() > 0) {
+				this.deezer.setArtistPageLimit(deezerConfig.getArtistLoadLimit());
+			}
+			if (deezerConfig.getPageLoadConcurrency() > 0) {
+				this.deezer.setPageLoadConcurrency(deezerConfig.getPageLoadConcurrency());
+			}
+			if (deezerConfig.getAudioCachePath() != null && !deezerConfig.getAudioCachePath().isEmpty() && deezerConfig.getAudioCacheSize() > 0) {
+				try {
+					this.deezer.setAudioCache(new DeezerAudioCache(Path.of(deezerConfig.getAudioCachePath()), deezerConfig.getAudioCacheSize()));
+				} catch (IOException e) {
+					log.error("Failed to open Deezer audio cache, continuing without it", e);
+				}
+			}
+			if (deezerConfig.getIsrcIndexPath() != null && !deezerConfig.getIsrcIndexPath().isEmpty()) {
+				try {
+					this.deezer.setIsrcIndex(new DeezerIsrcIndex(Path.of(deezerConfig.getIsrcIndexPath())));
+				} catch (IOException e) {
+					log.error("Failed to open Deezer ISRC index, continuing without it", e);
+				}
+			}
 		}
 		if (sourcesConfig.isYandexMusic()) {
 			log.info("Registering Yandex Music audio source manager...");
 			this.yandexMusic = new YandexMusicSourceManager(yandexMusicConfig.getAccessToken());
+			this.yandexMusic.setResponseCache(responseCache);
+			if (yandexMusicConfig.getPlaylistLoadLimit() > 0) {
+				this.yandexMusic.setPlaylistPageLimit(yandexMusicConfig.getPlaylistLoadLimit());
+			}
+			if (yandexMusicConfig.getPageLoadConcurrency() > 0) {
+				this.yandexMusic.setPageLoadConcurrency(yandexMusicConfig.getPageLoadConcurrency());
+			}
 		}
 		if (sourcesConfig.isFloweryTTS()) {
 			log.info("Registering Flowery TTS audio source manager...");
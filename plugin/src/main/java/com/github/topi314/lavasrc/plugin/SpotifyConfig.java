@@ -3,6 +3,8 @@ package com.github.topi314.lavasrc.plugin;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @ConfigurationProperties(prefix = "plugins.lavasrc.spotify")
 @Component
 public class SpotifyConfig {
@@ -12,6 +14,10 @@ public class SpotifyConfig {
 	private String countryCode;
 	private int playlistLoadLimit;
 	private int albumLoadLimit;
+	private int pageLoadConcurrency;
+	private List<Client> clients = List.of();
+	private String tokenStorePath;
+	private boolean resolveArtistArtwork;
 
 	public String getClientId() {
 		return this.clientId;
@@ -53,4 +59,59 @@ public class SpotifyConfig {
 		this.albumLoadLimit = albumLoadLimit;
 	}
 
+	public int getPageLoadConcurrency() {
+		return this.pageLoadConcurrency;
+	}
+
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		this.pageLoadConcurrency = pageLoadConcurrency;
+	}
+
+	public List<Client> getClients() {
+		return this.clients;
+	}
+
+	public void setClients(List<Client> clients) {
+		this.clients = clients;
+	}
+
+	public String getTokenStorePath() {
+		return this.tokenStorePath;
+	}
+
+	public void setTokenStorePath(String tokenStorePath) {
+		this.tokenStorePath = tokenStorePath;
+	}
+
+	public boolean isResolveArtistArtwork() {
+		return this.resolveArtistArtwork;
+	}
+
+	public void setResolveArtistArtwork(boolean resolveArtistArtwork) {
+		this.resolveArtistArtwork = resolveArtistArtwork;
+	}
+
+	public static class Client {
+
+		private String clientId;
+		private String clientSecret;
+
+		public String getClientId() {
+			return this.clientId;
+		}
+
+		public void setClientId(String clientId) {
+			this.clientId = clientId;
+		}
+
+		public String getClientSecret() {
+			return this.clientSecret;
+		}
+
+		public void setClientSecret(String clientSecret) {
+			this.clientSecret = clientSecret;
+		}
+
+	}
+
 }
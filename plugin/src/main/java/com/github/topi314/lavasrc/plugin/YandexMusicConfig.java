@@ -8,6 +8,8 @@ import org.springframework.stereotype.Component;
 public class YandexMusicConfig {
 
 	private String accessToken;
+	private int playlistLoadLimit;
+	private int pageLoadConcurrency;
 
 	public String getAccessToken() {
 		return this.accessToken;
@@ -16,4 +18,20 @@ public class YandexMusicConfig {
 	public void setAccessToken(String accessToken) {
 		this.accessToken = accessToken;
 	}
+
+	public int getPlaylistLoadLimit() {
+		return this.playlistLoadLimit;
+	}
+
+	public void setPlaylistLoadLimit(int playlistLoadLimit) {
+		this.playlistLoadLimit = playlistLoadLimit;
+	}
+
+	public int getPageLoadConcurrency() {
+		return this.pageLoadConcurrency;
+	}
+
+	public void setPageLoadConcurrency(int pageLoadConcurrency) {
+		this.pageLoadConcurrency = pageLoadConcurrency;
+	}
 }